@@ -0,0 +1,17 @@
+package org.example.annnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a small, low-cardinality entity whose rows can be cached in memory, so that filters on its
+ * attributes are resolved to identifiers up front and compared on the foreign key instead of
+ * joining the table
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReferenceData {
+
+}
@@ -0,0 +1,5 @@
+package org.example.dto;
+
+public record ClientDto(Long id, String name) {
+
+}
@@ -0,0 +1,5 @@
+package org.example.dto;
+
+public record DepartmentDto(Long id, String name) {
+
+}
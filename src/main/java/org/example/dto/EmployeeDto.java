@@ -0,0 +1,8 @@
+package org.example.dto;
+
+import java.util.Set;
+
+public record EmployeeDto(Long id, String name, DepartmentDto department,
+                          Set<ProjectDto> projects) {
+
+}
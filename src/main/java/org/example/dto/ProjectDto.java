@@ -0,0 +1,5 @@
+package org.example.dto;
+
+public record ProjectDto(Long id, String name, ClientDto client) {
+
+}
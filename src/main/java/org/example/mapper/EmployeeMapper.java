@@ -0,0 +1,31 @@
+package org.example.mapper;
+
+import static org.example.model.Employee.CLIENT;
+import static org.example.model.Employee.DEPARTMENT;
+import static org.example.model.Employee.PROJECTS;
+
+import org.example.dto.EmployeeDto;
+import org.example.dto.ProjectDto;
+import org.example.model.Employee;
+import org.example.model.ProjectToDo;
+import org.example.query.mapper.ExpandContext;
+import org.example.query.mapper.FilterResultMapper;
+import org.mapstruct.Context;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, imports = {Employee.class})
+public interface EmployeeMapper extends FilterResultMapper<Employee, EmployeeDto> {
+
+  @Override
+  @Mapping(target = DEPARTMENT,
+      conditionExpression = "java(context.isLoaded(Employee.DEPARTMENT, entity.getDepartment()))")
+  @Mapping(target = PROJECTS,
+      conditionExpression = "java(context.isLoaded(Employee.PROJECTS, entity.getProjects()))")
+  EmployeeDto toDto(Employee entity, @Context ExpandContext context);
+
+  @Mapping(target = CLIENT,
+      conditionExpression = "java(context.isLoaded(Employee.CLIENT, project.getClient()))")
+  ProjectDto toProjectDto(ProjectToDo project, @Context ExpandContext context);
+}
@@ -5,8 +5,10 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.example.annnotation.ReferenceData;
 
 @Entity
+@ReferenceData
 @Table(name = "clients")
 public class Client {
 
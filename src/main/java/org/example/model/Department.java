@@ -3,8 +3,10 @@ package org.example.model;
 import jakarta.persistence.*;
 import java.util.HashSet;
 import java.util.Set;
+import org.example.annnotation.ReferenceData;
 
 @Entity
+@ReferenceData
 @Table(name = "departments")
 public class Department {
 
@@ -0,0 +1,45 @@
+package org.example.mvc;
+
+import org.example.query.Fields;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Binds the {@code fields} request parameter, next to the filter request, to a {@link Fields}
+ * argument. The parameter can be repeated or hold a comma separated list, e.g.
+ * {@code /employees?name=John&fields=name,department.name}. It is registered like the
+ * {@link FilterRequestArgumentResolver}.
+ *
+ * <pre>
+ * {@code
+ * @GetMapping("/employees")
+ * public List<Map<String, Object>> getEmployees(EmployeeFilter filter, Fields fields) {
+ *     return executor.findPage(employeeFilterService, QEmployee.employee,
+ *         QueryParams.from(filter, PageRequest.of(0, 20), null), fields).getContent();
+ * }
+ * }
+ * </pre>
+ */
+@Component
+public class FieldsArgumentResolver implements HandlerMethodArgumentResolver {
+
+  public static final String FIELDS_PARAMETER = "fields";
+
+  @Override
+  public boolean supportsParameter(MethodParameter parameter) {
+    return Fields.class.isAssignableFrom(parameter.getParameterType())
+        && parameter.getContainingClass().isAnnotationPresent(RestController.class);
+  }
+
+  @Override
+  public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+      NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+
+    return Fields.parse(webRequest.getParameterValues(FIELDS_PARAMETER));
+  }
+}
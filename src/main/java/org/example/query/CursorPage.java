@@ -0,0 +1,17 @@
+package org.example.query;
+
+import java.util.List;
+
+/**
+ * Page of a keyset pagination, with the opaque cursor to request the next one with
+ *
+ * @param content    root entities of the page
+ * @param nextCursor cursor of the next page, encoding the values of the sort of the last row to
+ *                   seek from, null when this is the last one
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.query;
+
+/**
+ * How the expands of a request are loaded together with the root entities
+ */
+public enum ExpandStrategy {
+
+  /**
+   * Left join fetch every expand in the same query as the root entities
+   */
+  FETCH_JOIN,
+
+  /**
+   * Load the root entities first, then fill each expanded association with one batched
+   * {@code IN (parentIds)} query per association level, so that multiple to-many expands do not
+   * produce a cartesian product
+   */
+  BATCH,
+
+  /**
+   * Translate the expands into a dynamic entity graph, with subgraphs for nested expands, and apply
+   * it as a fetch graph hint. Filter joins are then plain joins and Hibernate decides how to fetch
+   * each attribute of the graph
+   */
+  ENTITY_GRAPH
+}
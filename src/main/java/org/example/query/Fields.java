@@ -0,0 +1,38 @@
+package org.example.query;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Sparse fieldset of a request, the properties to return instead of the full entities, e.g.
+ * {@code fields=name,department.name}
+ *
+ * @param names of the selected properties, in the order of the request
+ */
+public record Fields(List<String> names) {
+
+    public Fields(List<String> names) {
+        this.names = List.copyOf(names);
+    }
+
+    /**
+     * @param values of the fields parameter, each one a single property or a comma separated list
+     * @return the selected properties, without blanks nor duplicates
+     */
+    public static Fields parse(String... values) {
+        return new Fields(Stream.ofNullable(values)
+                .flatMap(Arrays::stream)
+                .filter(Objects::nonNull)
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList());
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.query;
+
+/**
+ * Rough cost of a filter request, from its shape alone, before running it
+ *
+ * @param inValues         number of values in the {@code in} conditions altogether
+ * @param toManyJoins      number of filters joining a to-many relation, which multiply the rows
+ * @param leadingWildcards number of {@code like} conditions starting with a wildcard, which no
+ *                         index can serve
+ * @param unpaged          whether all the matching rows are read
+ */
+public record QueryCost(int inValues, int toManyJoins, int leadingWildcards, boolean unpaged) {
+
+    /**
+     * @return the relative weight of the request, 1 for a simple paged one
+     */
+    public int weight() {
+        return 1 + inValues / 100 + toManyJoins + 2 * leadingWildcards + (unpaged ? 2 : 0);
+    }
+}
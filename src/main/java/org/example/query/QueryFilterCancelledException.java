@@ -0,0 +1,16 @@
+package org.example.query;
+
+/**
+ * The query of a filter request was cancelled by its {@code QueryCancellation}, e.g. once its
+ * client disconnected
+ */
+public class QueryFilterCancelledException extends QueryFilterException {
+
+    public QueryFilterCancelledException() {
+        super("The query was cancelled");
+    }
+
+    public QueryFilterCancelledException(Throwable cause) {
+        super("The query was cancelled", cause);
+    }
+}
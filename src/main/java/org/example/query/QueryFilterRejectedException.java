@@ -0,0 +1,22 @@
+package org.example.query;
+
+import java.time.Duration;
+
+/**
+ * The filter request was too heavy to run alongside the heavy requests already running, and no
+ * room was made for it in time
+ */
+public class QueryFilterRejectedException extends QueryFilterException {
+
+    private final transient Duration queueTimeout;
+
+    public QueryFilterRejectedException(Duration queueTimeout) {
+        super("Too many heavy queries are running, no slot was freed within "
+                + queueTimeout.toMillis() + " ms");
+        this.queueTimeout = queueTimeout;
+    }
+
+    public Duration getQueueTimeout() {
+        return queueTimeout;
+    }
+}
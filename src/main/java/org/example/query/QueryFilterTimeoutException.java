@@ -0,0 +1,20 @@
+package org.example.query;
+
+import java.time.Duration;
+
+/**
+ * The query of a filter request ran longer than its timeout and was cancelled by the database
+ */
+public class QueryFilterTimeoutException extends QueryFilterException {
+
+    private final transient Duration timeout;
+
+    public QueryFilterTimeoutException(Duration timeout, Throwable cause) {
+        super("The query exceeded its timeout of " + timeout.toMillis() + " ms", cause);
+        this.timeout = timeout;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+}
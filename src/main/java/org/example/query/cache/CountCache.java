@@ -0,0 +1,197 @@
+package org.example.query.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in cache of the totals of the filter requests, so that paging through a large result runs
+ * the count query once instead of once per page. Totals are keyed by the filters only, see
+ * {@link QueryKey#ofCount}, and are tolerated to be slightly stale:
+ * <ul>
+ *   <li>younger than {@code countStaleAfter}, a total is served as is</li>
+ *   <li>older, it is still served, and recomputed in the background so that the next request
+ *   gets a fresh one</li>
+ *   <li>older than {@code countExpireAfter}, it is no longer served and the count query runs
+ *   again with the request</li>
+ * </ul>
+ * A committed change of an entity type touched by the filters makes their totals stale at once.
+ */
+@Component
+public class CountCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CountCache.class);
+
+  private final boolean enabled;
+
+  private final long staleAfterNanos;
+
+  private final long expireAfterNanos;
+
+  private final Map<QueryKey, Entry> entries;
+
+  private long invalidations;
+
+  public CountCache(QueryCacheProperties properties, EntityChangeEvents entityChangeEvents) {
+    this.enabled = properties.counts();
+    this.staleAfterNanos = properties.countStaleAfter().toNanos();
+    this.expireAfterNanos = properties.countExpireAfter().toNanos();
+
+    int maxEntries = properties.countMaxEntries();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<QueryKey, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+
+    entityChangeEvents.subscribe(this::evict);
+  }
+
+  /**
+   * @return whether the totals are cached, {@code query.filter.cache.counts}
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Look up the total of a request, refreshing it in the background when it is stale
+   *
+   * @param key         of the total, see {@link QueryKey#ofCount}
+   * @param entityTypes touched by the filters of the request
+   * @param count       count query, run by the refresher with its own entity manager
+   * @param refresher   running the background refreshes
+   * @return the cached total, empty when there is none to serve
+   */
+  public OptionalLong get(QueryKey key, Set<Class<?>> entityTypes, LongSupplier count,
+      Executor refresher) {
+
+    if (!enabled) {
+      return OptionalLong.empty();
+    }
+
+    long now = System.nanoTime();
+    Entry entry;
+
+    synchronized (this) {
+      entry = entries.get(key);
+
+      if (entry == null || now - entry.loadedAt() > expireAfterNanos) {
+        return OptionalLong.empty();
+      }
+
+      if (entry.refreshing() || !(entry.stale() || now - entry.loadedAt() > staleAfterNanos)) {
+        return OptionalLong.of(entry.total());
+      }
+
+      entries.put(key, entry.refreshing(true));
+    }
+
+    refresh(key, entityTypes, count, refresher);
+
+    return OptionalLong.of(entry.total());
+  }
+
+  /**
+   * Cache the exact total of a request, stale at once when a change was committed while counting
+   *
+   * @param key                 of the total, see {@link QueryKey#ofCount}
+   * @param entityTypes         touched by the filters of the request
+   * @param total               number of matching root entities
+   * @param invalidationsBefore {@link #invalidations()} before counting
+   */
+  public void put(QueryKey key, Set<Class<?>> entityTypes, long total, long invalidationsBefore) {
+    if (!enabled) {
+      return;
+    }
+
+    long loadedAt = System.nanoTime();
+
+    synchronized (this) {
+      // a change committed while counting may be missing from the total
+      entries.put(key, new Entry(total, Set.copyOf(entityTypes), loadedAt,
+          invalidations != invalidationsBefore, false));
+    }
+  }
+
+  private void refresh(QueryKey key, Set<Class<?>> entityTypes, LongSupplier count,
+      Executor refresher) {
+
+    try {
+      refresher.execute(() -> {
+        long startedAt = System.nanoTime();
+        long invalidationsBefore = invalidations();
+
+        try {
+          long total = count.getAsLong();
+
+          synchronized (this) {
+            // a change committed while counting may be missing from the new total
+            entries.put(key, new Entry(total, Set.copyOf(entityTypes), startedAt,
+                invalidations != invalidationsBefore, false));
+          }
+        } catch (RuntimeException e) {
+          LOGGER.warn("Unable to refresh the count of {}: {}", key, e.getMessage());
+          release(key);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Count refresh of {} rejected: {}", key, e.getMessage());
+      release(key);
+    }
+  }
+
+  /**
+   * @return the number of changes committed so far, to be read before counting
+   */
+  public synchronized long invalidations() {
+    return invalidations;
+  }
+
+  private synchronized void release(QueryKey key) {
+    Entry entry = entries.get(key);
+
+    if (entry != null) {
+      entries.put(key, entry.refreshing(false));
+    }
+  }
+
+  /**
+   * Make stale every total whose filters touched the entity type
+   *
+   * @param entityType of a committed entity
+   */
+  public synchronized void evict(Class<?> entityType) {
+    invalidations++;
+
+    entries.replaceAll((key, entry) ->
+        entry.entityTypes().contains(entityType) ? entry.markStale() : entry);
+  }
+
+  /**
+   * @return the number of cached totals
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private record Entry(long total, Set<Class<?>> entityTypes, long loadedAt, boolean stale,
+                       boolean refreshing) {
+
+    Entry refreshing(boolean refreshing) {
+      return new Entry(total, entityTypes, loadedAt, stale, refreshing);
+    }
+
+    Entry markStale() {
+      return new Entry(total, entityTypes, loadedAt, true, refreshing);
+    }
+  }
+}
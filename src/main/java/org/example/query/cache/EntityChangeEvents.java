@@ -0,0 +1,136 @@
+package org.example.query.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the class of every entity inserted, updated or deleted once the transaction is
+ * committed, so that in-process caches can drop what the change made stale. A change of a
+ * collection only, e.g. a project added to an employee, is published as a change of its owner.
+ * Subscribers are called on the committing thread and should be quick.
+ */
+@Component
+public class EntityChangeEvents implements PostCommitInsertEventListener,
+    PostCommitUpdateEventListener, PostCommitDeleteEventListener,
+    PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+    PostCollectionRemoveEventListener {
+
+  private final transient List<Consumer<Class<?>>> subscribers = new CopyOnWriteArrayList<>();
+
+  public EntityChangeEvents(EntityManagerFactory entityManagerFactory) {
+    EventListenerRegistry eventListenerRegistry = entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+
+    eventListenerRegistry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    eventListenerRegistry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    eventListenerRegistry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+    eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+    eventListenerRegistry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+  }
+
+  /**
+   * @param subscriber called with the class of each changed entity
+   */
+  public void subscribe(Consumer<Class<?>> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  private void publish(EntityPersister persister) {
+    publish(persister.getMappedClass());
+  }
+
+  private void publish(Class<?> entityClass) {
+    subscribers.forEach(subscriber -> subscriber.accept(entityClass));
+  }
+
+  /**
+   * Collection events are raised on flush, the owner is published once the transaction committed
+   */
+  private void publishOnCommit(AbstractCollectionEvent event) {
+    Class<?> ownerClass = event.getSession().getFactory()
+        .getMappingMetamodel()
+        .getEntityDescriptor(event.getAffectedOwnerEntityName())
+        .getMappedClass();
+
+    event.getSession().getActionQueue().registerProcess(
+        (AfterTransactionCompletionProcess) (success, session) -> {
+          if (success) {
+            publish(ownerClass);
+          }
+        });
+  }
+
+  @Override
+  public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+    publishOnCommit(event);
+  }
+
+  @Override
+  public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+    publishOnCommit(event);
+  }
+
+  @Override
+  public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+    publishOnCommit(event);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    publish(event.getPersister());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    publish(event.getPersister());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    publish(event.getPersister());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+    // nothing was committed, the caches are still valid
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    // nothing was committed, the caches are still valid
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    // nothing was committed, the caches are still valid
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return true;
+  }
+}
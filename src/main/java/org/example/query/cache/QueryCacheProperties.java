@@ -0,0 +1,35 @@
+package org.example.query.cache;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the filter query caches, bound from the {@code query.filter.cache} properties
+ *
+ * @param results          whether the results of the filter execution are cached, off by default
+ * @param maxEntries       maximum number of cached results
+ * @param maxWeight        maximum number of rows held by the cached results altogether
+ * @param ttl              age after which a cached result is no longer served, for the changes
+ *                         published by no entity event to be seen
+ * @param counts           whether the totals of the pages are cached, off by default
+ * @param countMaxEntries  maximum number of cached totals
+ * @param countStaleAfter  age after which a cached total is refreshed in the background, while
+ *                         still being served
+ * @param countExpireAfter age after which a cached total is no longer served
+ * @param referenceDataTtl age after which a reference data index is reloaded, for the changes
+ *                         published by no entity event to be seen
+ */
+@ConfigurationProperties(prefix = "query.filter.cache")
+public record QueryCacheProperties(
+    @DefaultValue("false") boolean results,
+    @DefaultValue("1000") int maxEntries,
+    @DefaultValue("100000") long maxWeight,
+    @DefaultValue("1m") Duration ttl,
+    @DefaultValue("false") boolean counts,
+    @DefaultValue("10000") int countMaxEntries,
+    @DefaultValue("30s") Duration countStaleAfter,
+    @DefaultValue("10m") Duration countExpireAfter,
+    @DefaultValue("5m") Duration referenceDataTtl) {
+
+}
@@ -0,0 +1,108 @@
+package org.example.query.cache;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.example.query.Join;
+import org.example.query.QueryFilter;
+import org.example.query.QueryParams;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Canonical form of a filter request, so that requests asking for the same rows share a key
+ * whatever the order of their filters and of the values of their {@code in} conditions, or the
+ * duplicates among them
+ *
+ * @param serviceType filter service resolving the request, which may add its own predicates
+ * @param scope       of the predicates the service adds for the caller, e.g. its tenant, see
+ *                    {@code QueryFilterService#cacheScope}
+ * @param rootType    DO root entity
+ * @param filters     canonical filters, sorted and without duplicates
+ * @param expands     sorted expands
+ * @param page        page number, -1 when unpaged
+ * @param size        page size, -1 when unpaged
+ * @param sort        sort of the request, whose order matters
+ * @param variant     what is computed from the rows, e.g. a page of DTOs of a given mapper
+ */
+public record QueryKey(Class<?> serviceType, String scope, Class<?> rootType, List<String> filters,
+                       List<String> expands, int page, int size, String sort, String variant) {
+
+  private static final Set<String> LIST_CONDITIONS = Set.of("in", "!in");
+
+  private static final Pattern VALUE_SEPARATOR = Pattern.compile("(?<!/),");
+
+  /**
+   * @param serviceType filter service resolving the request
+   * @param scope       of the predicates the service adds for the caller
+   * @param rootType    DO root entity
+   * @param queryParams request
+   * @param variant     what is computed from the rows
+   * @return the key of the request
+   */
+  public static QueryKey of(Class<?> serviceType, String scope, Class<?> rootType,
+      QueryParams queryParams, String variant) {
+
+    PageRequest pageRequest = queryParams.pageRequest();
+
+    return new QueryKey(serviceType, scope, rootType,
+        filters(queryParams.queryFilter()),
+        Optional.ofNullable(queryParams.expandList()).orElse(List.of()).stream()
+            .distinct()
+            .sorted()
+            .toList(),
+        pageRequest == null ? -1 : pageRequest.getPageNumber(),
+        pageRequest == null ? -1 : pageRequest.getPageSize(),
+        pageRequest == null ? "" : pageRequest.getSort().toString(),
+        variant);
+  }
+
+  /**
+   * Key of the total of a request, which only depends on its filters: every page and sort of the
+   * same filters share it
+   *
+   * @param serviceType filter service resolving the request
+   * @param scope       of the predicates the service adds for the caller
+   * @param rootType    DO root entity
+   * @param queryParams request
+   * @return the key of the total of the request
+   */
+  public static QueryKey ofCount(Class<?> serviceType, String scope, Class<?> rootType,
+      QueryParams queryParams) {
+    return new QueryKey(serviceType, scope, rootType, filters(queryParams.queryFilter()),
+        List.of(), -1, -1, "", "count");
+  }
+
+  /**
+   * @return the canonical filters, sorted and without duplicates
+   */
+  static List<String> filters(List<QueryFilter> queryFilters) {
+    return queryFilters.stream()
+        .map(QueryKey::canonical)
+        .distinct()
+        .sorted()
+        .toList();
+  }
+
+  private static String canonical(QueryFilter queryFilter) {
+    return queryFilter.joins().stream().map(Join::entityToJoin).collect(Collectors.joining("."))
+        + "|" + queryFilter.fieldName()
+        + "|" + canonicalValue(String.valueOf(queryFilter.value()));
+  }
+
+  private static String canonicalValue(String value) {
+    int separator = value.indexOf(':');
+
+    if (separator < 0 || !LIST_CONDITIONS.contains(value.substring(0, separator))) {
+      return value;
+    }
+
+    return value.substring(0, separator + 1)
+        + Arrays.stream(VALUE_SEPARATOR.split(value.substring(separator + 1)))
+        .distinct()
+        .sorted()
+        .collect(Collectors.joining(","));
+  }
+}
@@ -0,0 +1,169 @@
+package org.example.query.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in cache of filter results, for the dashboards polling the same filtered lists over and
+ * over. Results are kept in least recently used order, bounded both by their number and by their
+ * total weight, e.g. their number of rows.
+ * <p>
+ * Each result is tagged with the entity types its query touched, its root entity and every joined
+ * or expanded one, and is dropped as soon as an entity of one of these types is committed. A result
+ * computed while a change was being committed is not cached, since it may predate the change.
+ * <p>
+ * Changes made without entity events, i.e. bulk JPQL or native statements, by other instances or
+ * by other applications, do not drop any result. A result is therefore no longer served once older
+ * than {@code query.filter.cache.ttl}, and a bulk change should call {@link #evict} once
+ * committed.
+ */
+@Component
+public class QueryResultCache {
+
+  private final boolean enabled;
+
+  private final int maxEntries;
+
+  private final long maxWeight;
+
+  private final long ttlNanos;
+
+  private final LinkedHashMap<QueryKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final Map<Class<?>, Set<QueryKey>> keysByEntityType = new HashMap<>();
+
+  private long weight;
+
+  private long invalidations;
+
+  public QueryResultCache(QueryCacheProperties properties, EntityChangeEvents entityChangeEvents) {
+    this.enabled = properties.results();
+    this.maxEntries = properties.maxEntries();
+    this.maxWeight = properties.maxWeight();
+    this.ttlNanos = properties.ttl().toNanos();
+
+    entityChangeEvents.subscribe(this::evict);
+  }
+
+  /**
+   * @return whether the results are cached, {@code query.filter.cache.results}
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param key         canonical request
+   * @param entityTypes touched by the query of the request
+   * @param weigher     weight of a result, at least 1
+   * @param loader      computing the result on a miss
+   * @return the cached result, or the loaded one
+   */
+  @SuppressWarnings("unchecked")
+  public <R> R get(QueryKey key, Set<Class<?>> entityTypes, ToLongFunction<R> weigher,
+      Supplier<R> loader) {
+
+    if (!enabled) {
+      return loader.get();
+    }
+
+    long invalidationsBefore;
+
+    synchronized (this) {
+      Entry entry = entries.get(key);
+
+      if (entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos) {
+        return (R) entry.value();
+      }
+      invalidationsBefore = invalidations;
+    }
+
+    R value = loader.get();
+
+    put(key, entityTypes, Math.max(1, weigher.applyAsLong(value)), value, invalidationsBefore);
+
+    return value;
+  }
+
+  private synchronized void put(QueryKey key, Set<Class<?>> entityTypes, long valueWeight,
+      Object value, long invalidationsBefore) {
+
+    if (invalidations != invalidationsBefore || valueWeight > maxWeight) {
+      return;
+    }
+
+    remove(key);
+    entries.put(key, new Entry(value, Set.copyOf(entityTypes), valueWeight, System.nanoTime()));
+    entityTypes.forEach(entityType ->
+        keysByEntityType.computeIfAbsent(entityType, k -> new HashSet<>()).add(key));
+    weight += valueWeight;
+
+    // least recently used first
+    Iterator<Map.Entry<QueryKey, Entry>> eldest = entries.entrySet().iterator();
+    while (entries.size() > maxEntries || weight > maxWeight) {
+      Map.Entry<QueryKey, Entry> evicted = eldest.next();
+      eldest.remove();
+      forget(evicted.getKey(), evicted.getValue());
+    }
+  }
+
+  /**
+   * Drop every result whose query touched the entity type
+   *
+   * @param entityType of a committed entity
+   */
+  public synchronized void evict(Class<?> entityType) {
+    invalidations++;
+
+    Set<QueryKey> keys = keysByEntityType.remove(entityType);
+
+    if (keys != null) {
+      keys.forEach(this::remove);
+    }
+  }
+
+  /**
+   * @return the number of cached results
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private void remove(QueryKey key) {
+    Entry entry = entries.remove(key);
+
+    if (entry != null) {
+      forget(key, entry);
+    }
+  }
+
+  /**
+   * Clean the weight and the index of a result already removed from the entries
+   */
+  private void forget(QueryKey key, Entry entry) {
+    weight -= entry.weight();
+
+    for (Class<?> entityType : entry.entityTypes()) {
+      Set<QueryKey> keys = keysByEntityType.get(entityType);
+
+      if (keys != null) {
+        keys.remove(key);
+
+        if (keys.isEmpty()) {
+          keysByEntityType.remove(entityType);
+        }
+      }
+    }
+  }
+
+  private record Entry(Object value, Set<Class<?>> entityTypes, long weight, long loadedAt) {
+
+  }
+}
@@ -0,0 +1,149 @@
+package org.example.query.cache;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.example.annnotation.ReferenceData;
+import org.example.query.routing.DataSourceRoute;
+import org.example.query.routing.DataSourceRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of the entities annotated with {@link ReferenceData}. For each cached entity and
+ * attribute, it keeps an index from the attribute value to the identifiers of the rows having it,
+ * so that a filter such as a department name can be resolved to a set of identifiers without
+ * joining the table.
+ * <p>
+ * Indexes are loaded lazily with their own entity manager, so they only ever contain committed
+ * rows, and are dropped whenever an entity of the same class is committed, to be reloaded on the
+ * next lookup. They are loaded from the primary database, since a replica lagging behind the commit
+ * would reload them with the rows of before it. Since filters are answered with the cached
+ * identifiers, a stale index returns wrong rows rather than slower ones. Changes made without
+ * entity events, i.e. bulk JPQL or native statements, must therefore call {@link #evict} once
+ * committed. The changes made by other instances or by other applications are only seen once the
+ * index is older than {@code query.filter.cache.reference-data-ttl} and reloaded.
+ * <p>
+ * Values are compared as strings with {@link String#equals}, therefore the cache should only be
+ * used for attributes whose database collation is case-sensitive.
+ */
+@Component
+public class ReferenceDataCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  private final long ttlNanos;
+
+  private final Map<Class<?>, Map<String, Index>> indexes = new ConcurrentHashMap<>();
+
+  public ReferenceDataCache(EntityManagerFactory entityManagerFactory,
+      EntityChangeEvents entityChangeEvents,
+      QueryCacheProperties properties) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.ttlNanos = properties.referenceDataTtl().toNanos();
+
+    entityChangeEvents.subscribe(this::evict);
+  }
+
+  /**
+   * @param entityClass the entity class
+   * @return true if the entity is reference data that can be resolved in memory
+   */
+  public boolean isCached(Class<?> entityClass) {
+    return entityClass.isAnnotationPresent(ReferenceData.class);
+  }
+
+  /**
+   * Resolve the identifiers of the rows having one of the given values for the attribute
+   *
+   * @param entityClass reference data entity class
+   * @param attribute   name of the attribute to match
+   * @param values      values of the attribute
+   * @return the matching identifiers, empty if the entity is not reference data
+   */
+  public Optional<Set<Object>> idsFor(Class<?> entityClass, String attribute,
+      Collection<String> values) {
+
+    if (!isCached(entityClass)) {
+      return Optional.empty();
+    }
+
+    Map<String, Set<Object>> ids = indexes
+        .computeIfAbsent(entityClass, k -> new ConcurrentHashMap<>())
+        .compute(attribute, (k, index) -> isFresh(index) ? index
+            : new Index(DataSourceRouting.on(DataSourceRoute.PRIMARY,
+                () -> load(entityClass, attribute)), System.nanoTime()))
+        .ids();
+
+    return Optional.of(values.stream()
+        .flatMap(value -> ids.getOrDefault(value, Set.of()).stream())
+        .collect(Collectors.toSet()));
+  }
+
+  /**
+   * Drop the indexes of the given entity class, to be called after committing a bulk change
+   *
+   * @param entityClass the changed entity class
+   */
+  public void evict(Class<?> entityClass) {
+    if (indexes.remove(entityClass) != null) {
+      LOGGER.debug("Evicted reference data of {}", entityClass.getSimpleName());
+    }
+  }
+
+  private boolean isFresh(Index index) {
+    return index != null && System.nanoTime() - index.loadedAt() < ttlNanos;
+  }
+
+  private Map<String, Set<Object>> load(Class<?> entityClass, String attribute) {
+    EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+    try {
+      EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+      String idAttribute = entityType.getId(entityType.getIdType().getJavaType()).getName();
+
+      PathBuilder<?> path = new PathBuilder<>(entityClass, "reference");
+      PathBuilder<Object> idPath = path.get(idAttribute);
+      PathBuilder<Object> attributePath = path.get(attribute);
+
+      Map<String, Set<Object>> index = new HashMap<>();
+
+      for (Tuple row : new JPAQueryFactory(entityManager).select(idPath, attributePath)
+          .from(path)
+          .fetch()) {
+        Object value = row.get(attributePath);
+
+        if (value != null) {
+          index.computeIfAbsent(value.toString(), k -> new HashSet<>()).add(row.get(idPath));
+        }
+      }
+
+      LOGGER.debug("Loaded {} values of {}.{}", index.size(), entityClass.getSimpleName(),
+          attribute);
+
+      index.replaceAll((value, ids) -> Set.copyOf(ids));
+
+      return Map.copyOf(index);
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  private record Index(Map<String, Set<Object>> ids, long loadedAt) {
+
+  }
+}
@@ -0,0 +1,19 @@
+package org.example.query.executor;
+
+/**
+ * How the total number of matching entities of a page is obtained
+ */
+public enum CountStrategy {
+
+  /**
+   * A separate count query, run concurrently with the page query on its own entity manager
+   */
+  CONCURRENT,
+
+  /**
+   * A {@code count(*) over()} window function on the page query itself, saving a round trip and a
+   * second scan of the filtered rows. Falls back to a separate count query when the dialect has no
+   * window functions or a join of the query can multiply the root rows.
+   */
+  WINDOW
+}
@@ -0,0 +1,35 @@
+package org.example.query.executor;
+
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Page telling whether its total comes from the {@link org.example.query.cache.CountCache}, in
+ * which case it may be slightly stale
+ *
+ * @param <T> type of the content
+ */
+public class CountedPage<T> extends PageImpl<T> {
+
+  private final boolean totalCached;
+
+  public CountedPage(List<T> content, Pageable pageable, long total, boolean totalCached) {
+    super(content, pageable, total);
+    this.totalCached = totalCached;
+  }
+
+  /**
+   * @return true if the total was served from the count cache rather than counted for this page
+   */
+  public boolean isTotalCached() {
+    return totalCached;
+  }
+
+  @Override
+  public <U> CountedPage<U> map(Function<? super T, ? extends U> converter) {
+    return new CountedPage<>(getContent().stream().<U>map(converter).toList(), getPageable(),
+        getTotalElements(), totalCached);
+  }
+}
@@ -0,0 +1,139 @@
+package org.example.query.executor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryParams;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encodes the position of a keyset page into an opaque cursor token and back.
+ * <p>
+ * The token is the Base64 JSON of the sort values of the last row, with their types, followed by
+ * an HMAC-SHA256 signature. The signature also covers the filters and sort of the request, so a
+ * cursor is rejected when it was altered or when it is replayed against another query. The secret
+ * comes from {@code query.filter.cursor-secret}; without it, a random one is generated and the
+ * cursors do not survive a restart nor work across instances.
+ */
+@Component
+public class CursorCodec {
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final ObjectMapper objectMapper;
+
+  private final SecretKeySpec secret;
+
+  public CursorCodec(ObjectMapper objectMapper, FilterQueryProperties properties) {
+    this.objectMapper = objectMapper;
+    this.secret = new SecretKeySpec(secret(properties.cursorSecret()), ALGORITHM);
+  }
+
+  /**
+   * @param key         sort values of the last row of the page
+   * @param queryParams request the page was fetched for
+   * @return the cursor token of the next page
+   */
+  public String encode(List<Object> key, QueryParams queryParams) {
+    ArrayNode types = objectMapper.createArrayNode();
+    ArrayNode values = objectMapper.createArrayNode();
+
+    for (Object value : key) {
+      types.add(value == null ? null : value.getClass().getName());
+      values.add(objectMapper.valueToTree(value));
+    }
+
+    ObjectNode position = objectMapper.createObjectNode();
+    position.set("types", types);
+    position.set("values", values);
+
+    try {
+      byte[] payload = objectMapper.writeValueAsBytes(position);
+
+      return ENCODER.encodeToString(payload) + "."
+          + ENCODER.encodeToString(signature(payload, queryParams));
+    } catch (JsonProcessingException e) {
+      throw new QueryFilterException("Unable to encode the cursor: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * @param cursor      token returned with the previous page
+   * @param queryParams request the next page is fetched for
+   * @return the sort values of the last row of the previous page
+   */
+  public List<Object> decode(String cursor, QueryParams queryParams) {
+    String[] parts = cursor.split("\\.");
+
+    try {
+      if (parts.length != 2) {
+        throw new QueryFilterException("Invalid cursor");
+      }
+
+      byte[] payload = DECODER.decode(parts[0]);
+
+      if (!MessageDigest.isEqual(DECODER.decode(parts[1]), signature(payload, queryParams))) {
+        throw new QueryFilterException("Invalid cursor");
+      }
+
+      JsonNode position = objectMapper.readTree(payload);
+      JsonNode types = position.get("types");
+      JsonNode values = position.get("values");
+      List<Object> key = new ArrayList<>();
+
+      for (int i = 0; i < values.size(); i++) {
+        key.add(types.get(i).isNull()
+            ? null
+            : objectMapper.treeToValue(values.get(i), Class.forName(types.get(i).asText())));
+      }
+
+      return key;
+    } catch (IllegalArgumentException | ClassNotFoundException | IOException e) {
+      throw new QueryFilterException("Invalid cursor", e);
+    }
+  }
+
+  private byte[] signature(byte[] payload, QueryParams queryParams) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(secret);
+      mac.update(payload);
+      mac.update(String.valueOf(queryParams.queryFilter()).getBytes(StandardCharsets.UTF_8));
+
+      if (queryParams.pageRequest() != null) {
+        mac.update(queryParams.pageRequest().getSort().toString()
+            .getBytes(StandardCharsets.UTF_8));
+      }
+      return mac.doFinal();
+    } catch (GeneralSecurityException e) {
+      throw new QueryFilterException("Unable to sign the cursor: " + e.getMessage(), e);
+    }
+  }
+
+  private static byte[] secret(String cursorSecret) {
+    if (cursorSecret != null && !cursorSecret.isBlank()) {
+      return cursorSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    byte[] random = new byte[32];
+    new SecureRandom().nextBytes(random);
+    return random;
+  }
+}
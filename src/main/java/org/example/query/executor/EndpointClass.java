@@ -0,0 +1,62 @@
+package org.example.query.executor;
+
+import java.util.function.Supplier;
+
+/**
+ * Kind of endpoint a filter request comes from, telling how long its queries may run and how it
+ * is scheduled. Filter requests are {@link #INTERACTIVE} by default, exports {@link #EXPORT}, and a
+ * call may declare another class:
+ *
+ * <pre>
+ * {@code
+ * Page<EmployeeDto> page = EndpointClass.REPORT.run(
+ *     () -> executor.findPage(employeeFilterService, QEmployee.employee, queryParams, mapper));
+ * }
+ * </pre>
+ */
+public enum EndpointClass {
+  /**
+   * Lists a user is waiting for
+   */
+  INTERACTIVE,
+  /**
+   * Reports and dashboards, expected to take longer
+   */
+  REPORT,
+  /**
+   * Exports of all the matching rows
+   */
+  EXPORT;
+
+  private static final ThreadLocal<EndpointClass> DECLARED = new ThreadLocal<>();
+
+  /**
+   * Run the work with the filter requests of the current thread in this class
+   *
+   * @param work to run
+   * @return the result of the work
+   */
+  public <R> R run(Supplier<R> work) {
+    EndpointClass previous = DECLARED.get();
+    DECLARED.set(this);
+
+    try {
+      return work.get();
+    } finally {
+      if (previous == null) {
+        DECLARED.remove();
+      } else {
+        DECLARED.set(previous);
+      }
+    }
+  }
+
+  /**
+   * @param defaultClass of the request when the current thread did not declare any
+   * @return the class declared by the current thread, otherwise the default one
+   */
+  public static EndpointClass current(EndpointClass defaultClass) {
+    EndpointClass declared = DECLARED.get();
+    return declared == null ? defaultClass : declared;
+  }
+}
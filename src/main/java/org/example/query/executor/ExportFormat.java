@@ -0,0 +1,29 @@
+package org.example.query.executor;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Output formats of a streaming export
+ */
+public enum ExportFormat {
+
+  /**
+   * One JSON object per line
+   */
+  NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+
+  /**
+   * A header line with the column names, then one line of comma separated values per row
+   */
+  CSV(MediaType.parseMediaType("text/csv"));
+
+  private final MediaType mediaType;
+
+  ExportFormat(MediaType mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  public MediaType mediaType() {
+    return mediaType;
+  }
+}
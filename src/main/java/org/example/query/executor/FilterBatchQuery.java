@@ -0,0 +1,59 @@
+package org.example.query.executor;
+
+import com.querydsl.core.types.dsl.EntityPathBase;
+import org.example.query.Fields;
+import org.example.query.QueryParams;
+import org.example.query.mapper.FilterResultMapper;
+import org.example.query.service.QueryFilterService;
+
+/**
+ * One of the named filter requests of a batch, see {@link FilterQueryExecutor#findPages}
+ *
+ * @param queryFilterService service resolving the filters and expands of the root entity
+ * @param rootEntity         DO root entity
+ * @param queryParams        filters, pagination and expands from the request
+ * @param mapper             of the root entity into its DTO, null for a page of entities or of
+ *                           fields
+ * @param fields             sparse fieldset of the request, null for a page of entities or of DTOs
+ */
+public record FilterBatchQuery<T>(
+    QueryFilterService queryFilterService,
+    EntityPathBase<T> rootEntity,
+    QueryParams queryParams,
+    FilterResultMapper<T, ?> mapper,
+    Fields fields) {
+
+  /**
+   * @return the request of a page of root entities
+   */
+  public static <T> FilterBatchQuery<T> of(QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity, QueryParams queryParams) {
+    return new FilterBatchQuery<>(queryFilterService, rootEntity, queryParams, null, null);
+  }
+
+  /**
+   * @return the request of a page of DTOs
+   */
+  public static <T> FilterBatchQuery<T> of(QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity, QueryParams queryParams, FilterResultMapper<T, ?> mapper) {
+    return new FilterBatchQuery<>(queryFilterService, rootEntity, queryParams, mapper, null);
+  }
+
+  /**
+   * @return the request of a page of the selected fields
+   */
+  public static <T> FilterBatchQuery<T> of(QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity, QueryParams queryParams, Fields fields) {
+    return new FilterBatchQuery<>(queryFilterService, rootEntity, queryParams, null, fields);
+  }
+
+  CountedPage<?> findPage(FilterQueryExecutor filterQueryExecutor) {
+    if (mapper != null) {
+      return filterQueryExecutor.findPage(queryFilterService, rootEntity, queryParams, mapper);
+    }
+    if (fields != null) {
+      return filterQueryExecutor.findPage(queryFilterService, rootEntity, queryParams, fields);
+    }
+    return filterQueryExecutor.findPage(queryFilterService, rootEntity, queryParams);
+  }
+}
@@ -0,0 +1,12 @@
+package org.example.query.executor;
+
+import org.example.query.cache.QueryCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({FilterQueryProperties.class, QueryCacheProperties.class,
+    QueryTimeoutProperties.class, QueryAdmissionProperties.class})
+public class FilterQueryConfiguration {
+
+}
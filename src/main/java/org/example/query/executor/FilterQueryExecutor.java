@@ -0,0 +1,667 @@
+package org.example.query.executor;
+
+import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.example.query.CursorPage;
+import org.example.query.Fields;
+import org.example.query.QueryCost;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryFilterTimeoutException;
+import org.example.query.QueryParams;
+import org.example.query.cache.CountCache;
+import org.example.query.cache.QueryKey;
+import org.example.query.cache.QueryResultCache;
+import org.example.query.mapper.ExpandContext;
+import org.example.query.mapper.FilterResultMapper;
+import org.example.query.routing.DataSourceRoute;
+import org.example.query.routing.DataSourceRouting;
+import org.example.query.service.QueryFilterService;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.SpecHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executes a filter request end to end, from the {@link QueryParams} to a {@link Page}, instead of
+ * having every service build the query, the count query and the page by hand.
+ * <p>
+ * The count query runs concurrently with the page query, on its own entity manager, since an
+ * entity manager is not thread-safe. It therefore takes a second connection from the pool, from
+ * the same {@link DataSourceRoute} as the request, and only sees committed rows, outside the
+ * transaction of the page: under concurrent changes, the total may differ from the page by the
+ * rows changed in between. When the page comes back short, the total is known from the page
+ * itself, and the count statement is cancelled, see {@link Session#cancelQuery}.
+ * <p>
+ * With the {@link CountStrategy#WINDOW} strategy, the total is read from the page query instead,
+ * see {@link QueryFilterService#fetchPageWithTotal}.
+ * <p>
+ * The pages of DTOs and of selected fields go through the {@link QueryResultCache} when it is
+ * enabled. The pages of entities do not, since managed entities cannot be shared between requests.
+ * <p>
+ * When the {@link CountCache} is enabled, the total of a page is taken from it whenever possible,
+ * so that the count query of a given filter runs once for all its pages. The returned
+ * {@link CountedPage} tells whether its total was cached.
+ * <p>
+ * Identical concurrent executions of the pages of DTOs and of selected fields, and of the counts,
+ * share a single query, see {@link QueryCoalescer}. The pages are shared before their read-only
+ * transaction is opened, so that an execution waiting for the identical one holds no connection.
+ * Their following page may be fetched in advance, see {@link PagePrefetcher}. Results are only
+ * shared between the callers of the same {@link QueryFilterService#cacheScope}.
+ * <p>
+ * The results, totals and pages filling these caches are read from the
+ * {@link DataSourceRoute#PRIMARY}: a replica lagging behind the commit which evicted them would
+ * refill them with the rows of before the commit.
+ * <p>
+ * Unless {@code query.filter.read-only} is false, the entities loaded by the executor are
+ * read-only and the persistence context is not flushed before its queries, even when the executor
+ * joins a read-write transaction. Changes made to the returned entities are therefore not
+ * persisted.
+ * <p>
+ * The statements of a request time out after the duration of its {@link EndpointClass}, scaled by
+ * its estimated cost, see {@link QueryTimeoutProperties}, which is reported as a
+ * {@link QueryFilterTimeoutException}. They can be cancelled with a {@link QueryCancellation}.
+ * Heavy requests only run once admitted, see {@link QueryAdmission}, before their read-only
+ * transaction is opened, so that a heavy request waiting for its turn holds no connection.
+ * <p>
+ * Several filter requests, e.g. the widgets of a dashboard, can be executed at once with
+ * {@link #findPages}, within a single read-only transaction.
+ */
+@Component
+public class FilterQueryExecutor implements DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FilterQueryExecutor.class);
+
+  private final EntityManager entityManager;
+
+  private final EntityManagerFactory entityManagerFactory;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final ExecutorService executorService;
+
+  private final CountStrategy countStrategy;
+
+  private final long maxOffset;
+
+  private final int batchMaxQueries;
+
+  private final boolean readOnly;
+
+  private final QueryTimeoutProperties queryTimeouts;
+
+  private final CursorCodec cursorCodec;
+
+  private final QueryResultCache queryResultCache;
+
+  private final CountCache countCache;
+
+  private final QueryCoalescer queryCoalescer;
+
+  private final PagePrefetcher pagePrefetcher;
+
+  private final QueryAdmission queryAdmission;
+
+  public FilterQueryExecutor(EntityManager entityManager,
+      EntityManagerFactory entityManagerFactory,
+      PlatformTransactionManager transactionManager,
+      FilterQueryProperties properties,
+      CursorCodec cursorCodec,
+      QueryResultCache queryResultCache,
+      CountCache countCache,
+      QueryCoalescer queryCoalescer,
+      PagePrefetcher pagePrefetcher,
+      QueryTimeoutProperties queryTimeouts,
+      QueryAdmission queryAdmission) {
+    this.entityManager = entityManager;
+    this.entityManagerFactory = entityManagerFactory;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.executorService = executorService(properties);
+    this.countStrategy = properties.countStrategy();
+    this.maxOffset = properties.maxOffset();
+    this.batchMaxQueries = properties.batchMaxQueries();
+    this.readOnly = properties.readOnly();
+    this.cursorCodec = cursorCodec;
+    this.queryResultCache = queryResultCache;
+    this.countCache = countCache;
+    this.queryCoalescer = queryCoalescer;
+    this.pagePrefetcher = pagePrefetcher;
+    this.queryTimeouts = queryTimeouts;
+    this.queryAdmission = queryAdmission;
+  }
+
+  /**
+   * Fetch the page of root entities matching the filters of the request, together with the total
+   * number of matching entities
+   *
+   * @param queryFilterService service resolving the filters and expands of the root entity
+   * @param rootEntity         DO root entity
+   * @param queryParams        filters, pagination and expands from the request
+   * @return the requested page
+   */
+  public <T> CountedPage<T> findPage(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams) {
+
+    checkOffset(queryParams);
+
+    return run(queryFilterService, queryParams,
+        () -> entityPage(queryFilterService, rootEntity, queryParams));
+  }
+
+  /**
+   * Fetch the page of root entities matching the filters of the request and map them into DTOs,
+   * within the transaction, with the expands of the request as mapping context
+   *
+   * @param queryFilterService service resolving the filters and expands of the root entity
+   * @param rootEntity         DO root entity
+   * @param queryParams        filters, pagination and expands from the request
+   * @param mapper             of the root entity into its DTO
+   * @return the requested page of DTOs
+   */
+  public <T, D> CountedPage<D> findPage(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      FilterResultMapper<T, D> mapper) {
+
+    checkOffset(queryParams);
+
+    return shared(queryFilterService, rootEntity.getType(), queryParams,
+        mapper.getClass().getName(), List.of(),
+        params -> {
+          ExpandContext context = ExpandContext.from(params);
+
+          return run(queryFilterService, params,
+              () -> entityPage(queryFilterService, rootEntity, params)
+                  .map(entity -> mapper.toDto(entity, context)));
+        });
+  }
+
+  /**
+   * Fetch the page of rows of the selected fields matching the filters of the request, together
+   * with the total number of matching entities, see {@link QueryFilterService#fetchFields}
+   *
+   * @param queryFilterService service resolving the filters and fields of the root entity
+   * @param rootEntity         DO root entity
+   * @param queryParams        filters and pagination from the request
+   * @param fields             sparse fieldset of the request
+   * @return the requested page of rows
+   */
+  public <T> CountedPage<Map<String, Object>> findPage(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      Fields fields) {
+
+    checkOffset(queryParams);
+
+    return shared(queryFilterService, rootEntity.getType(), queryParams,
+        "fields:" + fields.names(), fields.names(),
+        params -> run(queryFilterService, params,
+            () -> withCachedCount(queryFilterService, rootEntity, params,
+                () -> queryFilterService.fetchFields(entityManager, rootEntity, params,
+                    fields.names()),
+                () -> withConcurrentCount(queryFilterService, rootEntity, params,
+                    () -> queryFilterService.fetchFields(entityManager, rootEntity, params,
+                        fields.names())))));
+  }
+
+  /**
+   * Fetch the page of root entities matching the filters of the request, telling only whether a
+   * next page exists. No count query is run.
+   *
+   * @param queryFilterService service resolving the filters and expands of the root entity
+   * @param rootEntity         DO root entity
+   * @param queryParams        filters, pagination and expands from the request
+   * @return the requested slice
+   */
+  public <T> Slice<T> findSlice(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams) {
+
+    checkOffset(queryParams);
+
+    return run(queryFilterService, queryParams,
+        () -> queryFilterService.fetchSlice(entityManager, rootEntity, queryParams));
+  }
+
+  /**
+   * Fetch the page of root entities following the cursor, by seeking to the position it encodes
+   * rather than skipping rows, so that any page costs the same as the first one. The page size and
+   * sort come from the request, its offset is ignored.
+   *
+   * @param queryFilterService service resolving the filters and expands of the root entity
+   * @param rootEntity         DO root entity
+   * @param queryParams        filters, page size, sort and expands from the request
+   * @param cursor             cursor returned with the previous page, null for the first page
+   * @return the page, with the cursor of the next one
+   */
+  public <T> CursorPage<T> findCursorPage(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      String cursor) {
+
+    List<Object> after = cursor == null ? null : cursorCodec.decode(cursor, queryParams);
+
+    return run(queryFilterService, queryParams,
+        () -> queryFilterService.fetchKeyset(entityManager, rootEntity, queryParams, after,
+            lastKey -> cursorCodec.encode(lastKey, queryParams)));
+  }
+
+  /**
+   * Fetch the pages of several named filter requests, possibly of different root entities, within
+   * a single read-only transaction, hence with a single connection and persistence context for
+   * all their pages.
+   * <p>
+   * The pages are fetched one after the other, since the entity manager is not thread-safe. The
+   * count of a request is only started once its page is taken neither from the caches nor from an
+   * identical query in flight, and runs concurrently with its page alone, so that a batch holds at
+   * most two connections at a time. The count statement is cancelled when the page comes back
+   * short.
+   *
+   * @param queries filter requests, by name
+   * @return the page of each request, by name, in the order of the requests
+   */
+  public Map<String, CountedPage<?>> findPages(Map<String, FilterBatchQuery<?>> queries) {
+    if (queries.size() > batchMaxQueries) {
+      throw new QueryFilterException(String.format(
+          "A batch of %d queries is beyond the maximum of %d", queries.size(), batchMaxQueries));
+    }
+
+    queries.values().forEach(query -> checkOffset(query.queryParams()));
+
+    // admitted as a whole, as heavy as its heaviest request
+    QueryCost cost = queries.values().stream()
+        .map(query -> query.queryFilterService().estimateCost(query.queryParams()))
+        .max(Comparator.comparingInt(QueryCost::weight))
+        .orElseGet(() -> new QueryCost(0, 0, 0, false));
+
+    return queryAdmission.admit(EndpointClass.current(EndpointClass.INTERACTIVE), cost,
+        () -> transactionTemplate.execute(status -> {
+          Map<String, CountedPage<?>> pages = new LinkedHashMap<>();
+          queries.forEach((name, query) -> pages.put(name, query.findPage(this)));
+
+          return pages;
+        }));
+  }
+
+  /**
+   * Execute a request whose result can be shared with other requests: it is taken from the
+   * prefetched pages, the result cache or the identical query in flight when possible. The
+   * following page is then prefetched.
+   *
+   * @param variant   what is computed from the rows
+   * @param fields    selected by the request, if any
+   * @param execution of a request, opening its own transaction
+   */
+  private <R extends Page<?>> R shared(
+      QueryFilterService queryFilterService,
+      Class<?> rootType,
+      QueryParams queryParams,
+      String variant,
+      List<String> fields,
+      Function<QueryParams, R> execution) {
+
+    QueryKey key = QueryKey.of(queryFilterService.getClass(), queryFilterService.cacheScope(),
+        rootType, queryParams, variant);
+    Set<Class<?>> entityTypes = queryFilterService.entityTypes(rootType, queryParams, fields);
+
+    R page = pagePrefetcher.<R>take(key).orElseGet(() -> queryResultCache.get(key, entityTypes,
+        Page::getNumberOfElements,
+        () -> queryCoalescer.execute(key, () -> DataSourceRouting.on(
+            queryResultCache.isEnabled() ? DataSourceRoute.PRIMARY : null,
+            () -> execution.apply(queryParams)))));
+
+    if (page.hasNext() && page.nextPageable().getOffset() <= maxOffset) {
+      QueryParams next = new QueryParams(queryParams.queryFilter(),
+          queryParams.pageRequest().next(), queryParams.expandList());
+      QueryKey nextKey = QueryKey.of(queryFilterService.getClass(), key.scope(), rootType, next,
+          variant);
+
+      // skipped rather than waiting for a heavy slot
+      pagePrefetcher.prefetch(nextKey, entityTypes,
+          () -> queryAdmission.speculative(() -> DataSourceRouting.on(DataSourceRoute.PRIMARY,
+              () -> queryCoalescer.execute(nextKey, () -> execution.apply(next)))),
+          executorService);
+    }
+
+    return page;
+  }
+
+  /**
+   * Fetch the page of root entities, with its total
+   */
+  private <T> CountedPage<T> entityPage(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams) {
+
+    return withCachedCount(queryFilterService, rootEntity, queryParams,
+        () -> queryFilterService.fetchPage(entityManager, rootEntity, queryParams),
+        () -> {
+          // a total cached from the replica could miss the commit which evicted it
+          if (countStrategy == CountStrategy.WINDOW && (!countCache.isEnabled()
+              || DataSourceRouting.current() == DataSourceRoute.PRIMARY)) {
+            return queryFilterService.fetchPageWithTotal(entityManager, rootEntity, queryParams,
+                () -> count(queryFilterService, rootEntity, queryParams, entityManager));
+          }
+
+          return withConcurrentCount(queryFilterService, rootEntity, queryParams,
+              () -> queryFilterService.fetchPage(entityManager, rootEntity, queryParams));
+        });
+  }
+
+  /**
+   * Complete the page with the cached total of its filters when there is one, otherwise count
+   * it and cache the total
+   *
+   * @param content page without total
+   * @param counted page with its total, counted
+   */
+  private <T, R> CountedPage<R> withCachedCount(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      Supplier<List<R>> content,
+      Supplier<Page<R>> counted) {
+
+    QueryKey countKey = countKey(queryFilterService, rootEntity, queryParams);
+    Set<Class<?>> entityTypes = queryFilterService.entityTypes(rootEntity.getType(),
+        new QueryParams(queryParams.queryFilter(), null, null), List.of());
+
+    Supplier<Long> backgroundCount = backgroundCount(queryFilterService, rootEntity,
+        queryParams, new QueryCancellation());
+    OptionalLong cachedTotal = countCache.get(countKey, entityTypes, backgroundCount::get,
+        executorService);
+
+    if (cachedTotal.isPresent()) {
+      // a short page still tells its exact total
+      AtomicBoolean totalCached = new AtomicBoolean();
+      Page<R> page = PageableExecutionUtils.getPage(content.get(), pageable(queryParams), () -> {
+        totalCached.set(true);
+        return cachedTotal.getAsLong();
+      });
+
+      return new CountedPage<>(page.getContent(), page.getPageable(), page.getTotalElements(),
+          totalCached.get());
+    }
+
+    long invalidationsBefore = countCache.invalidations();
+    Page<R> page = counted.get();
+    countCache.put(countKey, entityTypes, page.getTotalElements(), invalidationsBefore);
+
+    return new CountedPage<>(page.getContent(), page.getPageable(), page.getTotalElements(),
+        false);
+  }
+
+  private <T, R> Page<R> withConcurrentCount(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      Supplier<List<R>> page) {
+
+    StartedCount count = startCount(queryFilterService, rootEntity, queryParams);
+
+    try {
+      return PageableExecutionUtils.getPage(page.get(), pageable(queryParams),
+          () -> total(count.total()));
+    } finally {
+      // no-op when the count was used, otherwise the page was short and the total is known
+      count.cancel();
+    }
+  }
+
+  private <T> StartedCount startCount(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams) {
+
+    QueryCancellation cancellation = new QueryCancellation();
+    Supplier<Long> backgroundCount = backgroundCount(queryFilterService, rootEntity,
+        queryParams, cancellation);
+
+    return new StartedCount(executorService.submit(() -> backgroundCount.get()), cancellation);
+  }
+
+  /**
+   * Run the queries of a request once admitted, then within a read-only transaction, joining the
+   * current one if any, so that a queued request holds no connection
+   */
+  private <R> R run(
+      QueryFilterService queryFilterService,
+      QueryParams queryParams,
+      Supplier<R> work) {
+
+    return queryAdmission.admit(EndpointClass.current(EndpointClass.INTERACTIVE),
+        queryFilterService.estimateCost(queryParams),
+        () -> transactionTemplate.execute(status -> execute(queryFilterService, queryParams,
+            work)));
+  }
+
+  /**
+   * Run the queries of a request with the entities they load read-only, so that no snapshot is
+   * kept for the dirty checking, and without flushing before each of them. This is already the
+   * case within a read-only transaction, not when joining a read-write one, whose pending changes
+   * are then flushed once beforehand.
+   * <p>
+   * The statements are given the timeout of the request, and cancelled with the
+   * {@link QueryCancellation} of the current thread, if any.
+   */
+  private <R> R execute(
+      QueryFilterService queryFilterService,
+      QueryParams queryParams,
+      Supplier<R> work) {
+
+    Session session = entityManager.unwrap(Session.class);
+    boolean defaultReadOnly = session.isDefaultReadOnly();
+    FlushMode flushMode = session.getHibernateFlushMode();
+    Object previousTimeout = session.getProperties().get(SpecHints.HINT_SPEC_QUERY_TIMEOUT);
+    Duration timeout = timeout(queryFilterService, queryParams);
+
+    if (readOnly) {
+      if (flushMode != FlushMode.MANUAL) {
+        session.flush();
+      }
+
+      session.setDefaultReadOnly(true);
+      session.setHibernateFlushMode(FlushMode.MANUAL);
+    }
+
+    session.setProperty(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) timeout.toMillis());
+
+    try {
+      return QueryCancellation.cancellable(session, timeout, work);
+    } finally {
+      session.setDefaultReadOnly(defaultReadOnly);
+      session.setHibernateFlushMode(flushMode);
+      session.setProperty(SpecHints.HINT_SPEC_QUERY_TIMEOUT,
+          previousTimeout == null ? 0 : previousTimeout);
+    }
+  }
+
+  private Duration timeout(QueryFilterService queryFilterService, QueryParams queryParams) {
+    return queryTimeouts.timeout(EndpointClass.current(EndpointClass.INTERACTIVE),
+        queryFilterService.estimateCost(queryParams).weight());
+  }
+
+  /**
+   * Count for another thread, with a dedicated entity manager taking its connection from the
+   * route of the calling thread, or from the primary when the total is cached, sharing the count
+   * of the same filters in flight
+   *
+   * @param countCancellation cancelling the count statement alone, the cancellation of the
+   *                          request, if any, cancelling it too
+   */
+  private <T> Supplier<Long> backgroundCount(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      QueryCancellation countCancellation) {
+
+    DataSourceRoute route = countCache.isEnabled()
+        ? DataSourceRoute.PRIMARY
+        : DataSourceRouting.current();
+    Duration timeout = timeout(queryFilterService, queryParams);
+    QueryCancellation cancellation = QueryCancellation.current();
+    QueryKey countKey = countKey(queryFilterService, rootEntity, queryParams);
+
+    return () -> DataSourceRouting.on(route, () -> queryCoalescer.execute(countKey,
+        () -> cancellation == null
+            ? countWithOwnEntityManager(queryFilterService, rootEntity, queryParams, timeout,
+                countCancellation)
+            : cancellation.cancelling(countCancellation::cancel,
+                () -> countWithOwnEntityManager(queryFilterService, rootEntity, queryParams,
+                    timeout, countCancellation))));
+  }
+
+  /**
+   * Key of the total of the request, within the cache scope of the calling thread
+   */
+  private <T> QueryKey countKey(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams) {
+
+    return QueryKey.ofCount(queryFilterService.getClass(), queryFilterService.cacheScope(),
+        rootEntity.getType(), queryParams);
+  }
+
+  /**
+   * Count the distinct root entities matching the filters, with a dedicated entity manager
+   */
+  private <T> long countWithOwnEntityManager(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      Duration timeout,
+      QueryCancellation cancellation) {
+
+    EntityManager countEntityManager = entityManagerFactory.createEntityManager();
+    countEntityManager.setProperty(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) timeout.toMillis());
+
+    try {
+      Session session = countEntityManager.unwrap(Session.class);
+
+      return cancellation.run(() -> QueryCancellation.cancellable(session, timeout,
+          () -> count(queryFilterService, rootEntity, queryParams, countEntityManager)));
+    } finally {
+      countEntityManager.close();
+    }
+  }
+
+  private <T> long count(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      EntityManager countEntityManager) {
+
+    JPAQuery<Long> countQuery = new JPAQueryFactory(countEntityManager)
+        .select(rootEntity.countDistinct())
+        .from(rootEntity);
+
+    countQuery.where(queryFilterService.predicateFrom(queryParams.queryFilter(), rootEntity,
+        countQuery, List.of()));
+
+    return Optional.ofNullable(countQuery.fetchOne()).orElse(0L);
+  }
+
+  private long total(Future<Long> count) {
+    try {
+      return count.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryFilterException("Interrupted while counting", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new QueryFilterException("Unable to count: " + e.getCause().getMessage(),
+          e.getCause());
+    }
+  }
+
+  /**
+   * Deep offsets scan and discard all the rows before the page, they are rejected past the
+   * configured window in favor of cursors
+   */
+  private void checkOffset(QueryParams queryParams) {
+    if (queryParams.pageRequest() != null && queryParams.pageRequest().getOffset() > maxOffset) {
+      throw new QueryFilterException(String.format(
+          "Offset %d is beyond the maximum of %d, use a cursor to page further",
+          queryParams.pageRequest().getOffset(), maxOffset));
+    }
+  }
+
+  private Pageable pageable(QueryParams queryParams) {
+    return queryParams.pageRequest() == null ? Pageable.unpaged() : queryParams.pageRequest();
+  }
+
+  /**
+   * Virtual threads when the runtime supports them, a fixed pool of platform threads otherwise
+   */
+  private static ExecutorService executorService(FilterQueryProperties properties) {
+    if (properties.virtualThreads()) {
+      try {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+            .invoke(null);
+      } catch (ReflectiveOperationException e) {
+        LOGGER.debug("Virtual threads are not available {}", e.getMessage());
+      }
+    }
+
+    return Executors.newFixedThreadPool(properties.executorThreads());
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Count running on another thread
+   *
+   * @param total        of the count
+   * @param cancellation of the count statement
+   */
+  private record StartedCount(Future<Long> total, QueryCancellation cancellation) {
+
+    /**
+     * Cancel the count statement, a thread interrupt leaving it running, no-op once counted
+     */
+    void cancel() {
+      cancellation.cancel();
+      total.cancel(false);
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package org.example.query.executor;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.dsl.EntityPathBase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.metamodel.Attribute.PersistentAttributeType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.example.query.QueryCost;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryParams;
+import org.example.query.routing.DataSourceRoute;
+import org.example.query.routing.DataSourceRouting;
+import org.example.query.service.QueryFilterService;
+import org.hibernate.Session;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Streams all the entities matching a filter request to the response, for exports that would
+ * otherwise page through the filter endpoint thousands of times, counting and skipping rows at
+ * every call and missing or repeating rows when the data changes in between.
+ * <p>
+ * The filtered query runs once, over a forward-only cursor, see
+ * {@link QueryFilterService#scroll}, and each row is written as soon as it is read. A row holds
+ * the basic attributes of the root entity, and the ids of its to-one associations as
+ * {@code <association>Id}, which are known without loading them.
+ * <p>
+ * The query times out after the duration of the {@link EndpointClass#EXPORT} class, scaled by its
+ * estimated cost, failing with a {@link org.example.query.QueryFilterTimeoutException}. A client
+ * disconnecting fails the writing of the rows, which ends the query. The query is also cancelled
+ * with the {@link QueryCancellation} of the calling thread, if any.
+ * <p>
+ * The export only starts once admitted, see {@link QueryAdmission}, before opening its
+ * transaction, so that queued exports hold no connection.
+ *
+ * <pre>
+ * {@code
+ * @GetMapping(value = "/employees/export")
+ * public ResponseEntity<StreamingResponseBody> export(EmployeeFilter filter) {
+ *     return ResponseEntity.ok()
+ *         .contentType(ExportFormat.CSV.mediaType())
+ *         .body(exporter.export(employeeFilterService, QEmployee.employee,
+ *             QueryParams.from(filter, null, null), ExportFormat.CSV));
+ * }
+ * }
+ * </pre>
+ */
+@Component
+public class FilterQueryExporter {
+
+  private final EntityManager entityManager;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final ObjectMapper objectMapper;
+
+  private final int fetchSize;
+
+  private final QueryTimeoutProperties queryTimeouts;
+
+  private final QueryAdmission queryAdmission;
+
+  public FilterQueryExporter(EntityManager entityManager,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      FilterQueryProperties properties,
+      QueryTimeoutProperties queryTimeouts,
+      QueryAdmission queryAdmission) {
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.fetchSize = properties.exportFetchSize();
+    this.queryTimeouts = queryTimeouts;
+    this.queryAdmission = queryAdmission;
+  }
+
+  /**
+   * @param queryFilterService service resolving the filters of the root entity
+   * @param rootEntity         DO root entity
+   * @param queryParams        filters from the request, pagination and expands are ignored
+   * @param format             of the rows
+   * @return the body writing the rows, in its own read-only transaction
+   */
+  public <T> StreamingResponseBody export(
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      ExportFormat format) {
+
+    // the body is written by another thread
+    DataSourceRoute route = DataSourceRouting.requested();
+    QueryCancellation cancellation = QueryCancellation.current();
+    EndpointClass endpointClass = EndpointClass.current(EndpointClass.EXPORT);
+    QueryCost cost = queryFilterService.estimateCost(queryParams);
+    Duration timeout = queryTimeouts.timeout(endpointClass, cost.weight());
+
+    return outputStream -> {
+      Writer writer = new BufferedWriter(
+          new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+      try {
+        Supplier<Object> work = () -> queryAdmission.admit(endpointClass, cost, () -> {
+          DataSourceRouting.on(route, () -> transactionTemplate.executeWithoutResult(
+              status -> writeRows(writer, queryFilterService, rootEntity, queryParams, format,
+                  timeout)));
+          return null;
+        });
+
+        if (cancellation == null) {
+          work.get();
+        } else {
+          cancellation.run(work);
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      writer.flush();
+    };
+  }
+
+  private <T> void writeRows(
+      Writer writer,
+      QueryFilterService queryFilterService,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      ExportFormat format,
+      Duration timeout) {
+
+    entityManager.setProperty(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) timeout.toMillis());
+    List<SingularAttribute<?, ?>> columns = columns(rootEntity.getType());
+
+    if (format == ExportFormat.CSV) {
+      writeLine(writer, columns.stream()
+          .map(this::columnName)
+          .map(this::csvValue)
+          .collect(Collectors.joining(",")));
+    }
+
+    QueryCancellation.cancellable(entityManager.unwrap(Session.class), timeout, () -> {
+      queryFilterService.scroll(entityManager, rootEntity, queryParams, fetchSize,
+          entity -> write(writer, format, row(entity, columns)));
+      return null;
+    });
+  }
+
+  private void write(Writer writer, ExportFormat format, Map<String, Object> row) {
+    try {
+      if (format == ExportFormat.NDJSON) {
+        objectMapper.writeValue(writer, row);
+        writer.write('\n');
+      } else {
+        writeLine(writer, row.values().stream()
+            .map(value -> value == null ? "" : csvValue(value.toString()))
+            .collect(Collectors.joining(",")));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeLine(Writer writer, String line) {
+    try {
+      writer.write(line);
+      writer.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String csvValue(String value) {
+    if (value.contains(",") || value.contains("\"") || value.contains("\n")
+        || value.contains("\r")) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    return value;
+  }
+
+  /**
+   * Basic attributes and to-one associations of the entity, sorted by name for a stable layout
+   */
+  private List<SingularAttribute<?, ?>> columns(Class<?> entityClass) {
+    return entityManager.getMetamodel().entity(entityClass).getSingularAttributes().stream()
+        .filter(attribute -> attribute.getPersistentAttributeType() == PersistentAttributeType.BASIC
+            || attribute.isAssociation())
+        .<SingularAttribute<?, ?>>map(attribute -> attribute)
+        .sorted(Comparator.comparing(SingularAttribute::getName))
+        .toList();
+  }
+
+  private String columnName(SingularAttribute<?, ?> attribute) {
+    return attribute.isAssociation() ? attribute.getName() + "Id" : attribute.getName();
+  }
+
+  private Map<String, Object> row(Object entity, List<SingularAttribute<?, ?>> columns) {
+    PersistenceUnitUtil persistenceUnitUtil =
+        entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+    Map<String, Object> row = new LinkedHashMap<>();
+
+    for (SingularAttribute<?, ?> column : columns) {
+      Object value = value(entity, column);
+
+      // the id of a lazy association is held by its proxy, reading it does not load it
+      row.put(columnName(column), column.isAssociation() && value != null
+          ? persistenceUnitUtil.getIdentifier(value)
+          : value);
+    }
+    return row;
+  }
+
+  private Object value(Object entity, SingularAttribute<?, ?> attribute) {
+    if (!(attribute.getJavaMember() instanceof Field field)) {
+      throw new QueryFilterException(
+          String.format("Attribute %s is not mapped on a field", attribute.getName()));
+    }
+
+    try {
+      field.setAccessible(true); // NOSONAR
+      return field.get(entity);
+    } catch (IllegalAccessException e) {
+      throw new QueryFilterException(e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package org.example.query.executor;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the filter query execution, bound from the {@code query.filter} properties
+ *
+ * @param virtualThreads      whether to run the concurrent queries on virtual threads, when the
+ *                            runtime supports them
+ * @param executorThreads     number of platform threads running the concurrent queries otherwise
+ * @param countStrategy       how the total of a page is obtained
+ * @param maxOffset           deepest offset accepted for offset pagination, deeper pages must be
+ *                            requested with a cursor
+ * @param cursorSecret        secret signing the cursors of keyset pagination
+ * @param exportFetchSize     number of rows fetched at a time by the streaming exports, and after
+ *                            which their persistence context is cleared
+ * @param coalesce            whether identical concurrent queries share a single execution
+ * @param coalesceTimeout     how long an execution waits for the identical one in flight before
+ *                            running its own query
+ * @param prefetch            whether the page following the one served is fetched in advance
+ * @param prefetchConcurrency maximum number of pages fetched in advance at a time
+ * @param prefetchTtl         how long a page fetched in advance is kept for the request asking for
+ *                            it
+ * @param readOnly            whether the entities loaded by the executor are read-only, without
+ *                            flushing before its queries
+ * @param batchMaxQueries     maximum number of filter requests executed in a single batch
+ */
+@ConfigurationProperties(prefix = "query.filter")
+public record FilterQueryProperties(
+    @DefaultValue("true") boolean virtualThreads,
+    @DefaultValue("16") int executorThreads,
+    @DefaultValue("CONCURRENT") CountStrategy countStrategy,
+    @DefaultValue("10000") long maxOffset,
+    String cursorSecret,
+    @DefaultValue("1000") int exportFetchSize,
+    @DefaultValue("true") boolean coalesce,
+    @DefaultValue("5s") Duration coalesceTimeout,
+    @DefaultValue("false") boolean prefetch,
+    @DefaultValue("2") int prefetchConcurrency,
+    @DefaultValue("10s") Duration prefetchTtl,
+    @DefaultValue("true") boolean readOnly,
+    @DefaultValue("20") int batchMaxQueries) {
+
+}
@@ -0,0 +1,146 @@
+package org.example.query.executor;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.example.query.cache.EntityChangeEvents;
+import org.example.query.cache.QueryKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in speculative fetch of the page following the one just served, for the clients walking
+ * through a filtered result page by page. The next page is executed in the background, in its own
+ * read-only transaction opened by the loader, and kept for {@code query.filter.prefetch-ttl} for
+ * the request asking for it, which takes it.
+ * <p>
+ * At most {@code query.filter.prefetch-concurrency} prefetches run at a time, the others are
+ * skipped, so that prefetching never takes more than its share of the connections from the actual
+ * requests. A prefetched page is dropped when an entity type touched by its query is committed.
+ */
+@Component
+public class PagePrefetcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PagePrefetcher.class);
+
+  private final boolean enabled;
+
+  private final long ttlNanos;
+
+  private final Semaphore budget;
+
+  private final Map<QueryKey, Entry> pages = new ConcurrentHashMap<>();
+
+  private final Set<QueryKey> inFlight = ConcurrentHashMap.newKeySet();
+
+  private long invalidations;
+
+  public PagePrefetcher(FilterQueryProperties properties,
+      EntityChangeEvents entityChangeEvents) {
+    this.enabled = properties.prefetch();
+    this.ttlNanos = properties.prefetchTtl().toNanos();
+    this.budget = new Semaphore(properties.prefetchConcurrency());
+
+    entityChangeEvents.subscribe(this::evict);
+  }
+
+  /**
+   * @param key canonical request
+   * @return the prefetched result of the request, removed from the prefetched ones
+   */
+  @SuppressWarnings("unchecked")
+  public <R> Optional<R> take(QueryKey key) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    Entry entry = pages.remove(key);
+
+    if (entry == null || System.nanoTime() - entry.fetchedAt() > ttlNanos) {
+      return Optional.empty();
+    }
+
+    return Optional.of((R) entry.value());
+  }
+
+  /**
+   * Fetch the result of the request in the background, unless it is already prefetched or the
+   * prefetch budget is exhausted
+   *
+   * @param key         canonical request
+   * @param entityTypes touched by the query of the request
+   * @param loader      running the query, within its own read-only transaction
+   * @param executor    running the prefetch
+   */
+  public void prefetch(QueryKey key, Set<Class<?>> entityTypes, Supplier<?> loader,
+      Executor executor) {
+
+    if (!enabled || pages.containsKey(key) || !budget.tryAcquire()) {
+      return;
+    }
+
+    if (!inFlight.add(key)) {
+      budget.release();
+      return;
+    }
+
+    try {
+      executor.execute(() -> {
+        try {
+          load(key, Set.copyOf(entityTypes), loader);
+        } finally {
+          inFlight.remove(key);
+          budget.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Prefetch of {} rejected: {}", key, e.getMessage());
+      inFlight.remove(key);
+      budget.release();
+    }
+  }
+
+  private void load(QueryKey key, Set<Class<?>> entityTypes, Supplier<?> loader) {
+    long fetchedAt = System.nanoTime();
+    long invalidationsBefore = invalidations();
+
+    try {
+      Object value = loader.get();
+
+      synchronized (this) {
+        // a change committed while fetching may be missing from the page
+        if (invalidations == invalidationsBefore) {
+          pages.values().removeIf(entry -> System.nanoTime() - entry.fetchedAt() > ttlNanos);
+          pages.put(key, new Entry(value, entityTypes, fetchedAt));
+        }
+      }
+    } catch (RuntimeException e) {
+      LOGGER.debug("Unable to prefetch {}: {}", key, e.getMessage());
+    }
+  }
+
+  private synchronized long invalidations() {
+    return invalidations;
+  }
+
+  /**
+   * Drop every prefetched result whose query touched the entity type
+   *
+   * @param entityType of a committed entity
+   */
+  public synchronized void evict(Class<?> entityType) {
+    invalidations++;
+
+    pages.values().removeIf(entry -> entry.entityTypes().contains(entityType));
+  }
+
+  private record Entry(Object value, Set<Class<?>> entityTypes, long fetchedAt) {
+
+  }
+}
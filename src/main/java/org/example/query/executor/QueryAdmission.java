@@ -0,0 +1,168 @@
+package org.example.query.executor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.example.query.QueryCost;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryFilterRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control of the filter requests, so that exports and other long queries cannot take
+ * all the connections of the pool from the lists a user is waiting for.
+ * <p>
+ * A request is heavy when it is not {@link EndpointClass#INTERACTIVE}, or when the weight of its
+ * estimated cost reaches {@code query.filter.admission.heavy-weight}, e.g. long {@code in} lists,
+ * filters through to-many relations or leading wildcards. Light requests run right away. Heavy
+ * requests run at most {@code heavy-slots} at a time, the others queue in arrival order, and are
+ * rejected with a {@link QueryFilterRejectedException} after {@code queue-timeout}. The rest of
+ * the pool is thereby left to the light requests.
+ * <p>
+ * Exports also take one of fewer {@code export-slots}, so that they never hold all the heavy
+ * slots and heavy interactive requests and reports still get one.
+ * <p>
+ * A request is admitted once, the queries it runs itself, e.g. its count, being part of it.
+ * <p>
+ * Speculative work, e.g. a prefetch, must never crowd out the actual requests: its heavy requests
+ * only take a slot that is free right away, and are rejected otherwise, see {@link #speculative}.
+ */
+@Component
+public class QueryAdmission {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryAdmission.class);
+
+  private static final ThreadLocal<Boolean> ADMITTED = new ThreadLocal<>();
+
+  private static final ThreadLocal<Boolean> SPECULATIVE = new ThreadLocal<>();
+
+  private final boolean enabled;
+
+  private final int heavyWeight;
+
+  private final Duration queueTimeout;
+
+  private final Semaphore heavySlots;
+
+  private final Semaphore exportSlots;
+
+  private final LongAdder admitted = new LongAdder();
+
+  private final LongAdder rejected = new LongAdder();
+
+  public QueryAdmission(QueryAdmissionProperties properties) {
+    this.enabled = properties.enabled();
+    this.heavyWeight = properties.heavyWeight();
+    this.queueTimeout = properties.queueTimeout();
+    this.heavySlots = new Semaphore(properties.heavySlots(), true);
+    this.exportSlots = new Semaphore(properties.exportSlots(), true);
+
+    if (enabled && properties.exportSlots() >= properties.heavySlots()) {
+      LOGGER.warn("The exports may take all the {} heavy slots, {} export slots are configured",
+          properties.heavySlots(), properties.exportSlots());
+    }
+  }
+
+  /**
+   * @param endpointClass of the request
+   * @param cost          estimated cost of the request
+   * @return whether the request is limited as a heavy one
+   */
+  public boolean isHeavy(EndpointClass endpointClass, QueryCost cost) {
+    return endpointClass != EndpointClass.INTERACTIVE || cost.weight() >= heavyWeight;
+  }
+
+  /**
+   * Run the work of a request once admitted, right away if it is light
+   *
+   * @param endpointClass of the request
+   * @param cost          estimated cost of the request
+   * @param work          running the queries of the request
+   * @return the result of the work
+   * @throws QueryFilterRejectedException when no slot was freed in time for a heavy request
+   */
+  public <R> R admit(EndpointClass endpointClass, QueryCost cost, Supplier<R> work) {
+    if (!enabled || ADMITTED.get() != null || !isHeavy(endpointClass, cost)) {
+      return work.get();
+    }
+
+    Duration wait = SPECULATIVE.get() != null ? Duration.ZERO : queueTimeout;
+    long deadline = System.nanoTime() + wait.toNanos();
+    boolean export = endpointClass == EndpointClass.EXPORT;
+
+    if (export) {
+      acquire(exportSlots, deadline, wait);
+    }
+
+    try {
+      acquire(heavySlots, deadline, wait);
+    } catch (RuntimeException e) {
+      if (export) {
+        exportSlots.release();
+      }
+      throw e;
+    }
+
+    admitted.increment();
+    ADMITTED.set(Boolean.TRUE);
+
+    try {
+      return work.get();
+    } finally {
+      ADMITTED.remove();
+      heavySlots.release();
+
+      if (export) {
+        exportSlots.release();
+      }
+    }
+  }
+
+  /**
+   * Run speculative work, whose heavy requests are admitted only when a slot is free right away
+   *
+   * @param work running filter requests
+   * @return the result of the work
+   * @throws QueryFilterRejectedException when a heavy request of the work found no free slot
+   */
+  public <R> R speculative(Supplier<R> work) {
+    SPECULATIVE.set(Boolean.TRUE);
+
+    try {
+      return work.get();
+    } finally {
+      SPECULATIVE.remove();
+    }
+  }
+
+  private void acquire(Semaphore slots, long deadline, Duration wait) {
+    try {
+      if (!slots.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+        rejected.increment();
+        LOGGER.debug("Rejected a heavy request after waiting {} ms", wait.toMillis());
+        throw new QueryFilterRejectedException(wait);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryFilterException("Interrupted while waiting for a heavy query slot", e);
+    }
+  }
+
+  /**
+   * @return the number of heavy requests admitted
+   */
+  public long admitted() {
+    return admitted.sum();
+  }
+
+  /**
+   * @return the number of heavy requests rejected after waiting for a slot
+   */
+  public long rejected() {
+    return rejected.sum();
+  }
+}
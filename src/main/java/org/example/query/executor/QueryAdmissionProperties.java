@@ -0,0 +1,29 @@
+package org.example.query.executor;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Admission of the heavy filter requests, bound from the {@code query.filter.admission}
+ * properties, see {@link QueryAdmission}
+ *
+ * @param enabled      whether the heavy requests are limited
+ * @param heavyWeight  weight of the estimated cost from which an interactive request is heavy
+ * @param heavySlots   maximum number of heavy requests running at a time, to be kept well below
+ *                     the size of the connection pool, a request counting its total concurrently
+ *                     holding two connections
+ * @param exportSlots  maximum number of exports running at a time, among the heavy requests,
+ *                     lower than {@code heavySlots} for the other heavy requests not to wait for
+ *                     the exports
+ * @param queueTimeout how long a heavy request waits for a slot before being rejected
+ */
+@ConfigurationProperties(prefix = "query.filter.admission")
+public record QueryAdmissionProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("4") int heavyWeight,
+    @DefaultValue("3") int heavySlots,
+    @DefaultValue("1") int exportSlots,
+    @DefaultValue("10s") Duration queueTimeout) {
+
+}
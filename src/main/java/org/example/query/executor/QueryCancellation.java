@@ -0,0 +1,121 @@
+package org.example.query.executor;
+
+import jakarta.persistence.QueryTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.example.query.QueryFilterCancelledException;
+import org.example.query.QueryFilterTimeoutException;
+import org.hibernate.Session;
+
+/**
+ * Cancels the statements running for a request, e.g. once its client disconnected, instead of
+ * letting them hold their connection until they complete. With an asynchronous request:
+ *
+ * <pre>
+ * {@code
+ * QueryCancellation cancellation = new QueryCancellation();
+ * DeferredResult<Page<EmployeeDto>> result = new DeferredResult<>();
+ * result.onError(error -> cancellation.cancel());
+ * result.onTimeout(cancellation::cancel);
+ *
+ * taskExecutor.execute(() -> result.setResult(cancellation.run(
+ *     () -> executor.findPage(employeeFilterService, QEmployee.employee, queryParams, mapper))));
+ * }
+ * </pre>
+ */
+public final class QueryCancellation {
+
+  private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+  private final Set<Runnable> cancellers = ConcurrentHashMap.newKeySet();
+
+  private volatile boolean cancelled;
+
+  /**
+   * Run the work with the statements of the current thread cancelled by this cancellation
+   *
+   * @param work running filter requests
+   * @return the result of the work
+   */
+  public <R> R run(Supplier<R> work) {
+    QueryCancellation previous = CURRENT.get();
+    CURRENT.set(this);
+
+    try {
+      return work.get();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Cancel the running statements, and fail the ones to come
+   */
+  public void cancel() {
+    cancelled = true;
+    cancellers.forEach(Runnable::run);
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * @return the cancellation of the current thread, null if none
+   */
+  static QueryCancellation current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Run the statements of the session, cancellable by the cancellation of the current thread, if
+   * any, reporting a timeout as such. Queries time out with the JPA exception, native
+   * {@link org.hibernate.ScrollableResults} with the Hibernate one.
+   *
+   * @param session running the statements
+   * @param timeout of the statements, reported when they time out
+   * @param work    running statements on the session
+   * @return the result of the work
+   */
+  static <R> R cancellable(Session session, Duration timeout, Supplier<R> work) {
+    QueryCancellation cancellation = current();
+
+    try {
+      return cancellation == null
+          ? work.get()
+          : cancellation.cancelling(session::cancelQuery, work);
+    } catch (QueryTimeoutException | org.hibernate.QueryTimeoutException e) {
+      if (cancellation != null && cancellation.isCancelled()) {
+        throw new QueryFilterCancelledException(e);
+      }
+      throw new QueryFilterTimeoutException(timeout, e);
+    }
+  }
+
+  /**
+   * Cancel the statements of a session with this cancellation while running the work
+   *
+   * @param canceller cancelling the running statement of a session
+   * @param work      running statements on the session
+   * @return the result of the work
+   */
+  <R> R cancelling(Runnable canceller, Supplier<R> work) {
+    if (cancelled) {
+      throw new QueryFilterCancelledException();
+    }
+
+    cancellers.add(canceller);
+
+    try {
+      return work.get();
+    } finally {
+      cancellers.remove(canceller);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.example.query.executor;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.example.query.QueryFilterCancelledException;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryFilterRejectedException;
+import org.example.query.QueryFilterTimeoutException;
+import org.example.query.cache.QueryKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single flight of identical filter queries: while a query is running for a canonical request,
+ * the concurrent executions of the same request wait for its result instead of running it again.
+ * The first execution runs the query on its own thread, and its result or its exception is handed
+ * to all the waiting ones.
+ * <p>
+ * Waiting is bounded by {@code query.filter.coalesce-timeout}, after which an execution runs the
+ * query itself. The failures bound to the first execution rather than to the query, i.e. its
+ * cancellation, its timeout, scaled by its endpoint class, and its rejection by the
+ * {@link QueryAdmission}, are not handed over: the waiting executions run the query again. Only
+ * detached results may be shared, i.e. DTOs, rows and counts, never managed entities.
+ */
+@Component
+public class QueryCoalescer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryCoalescer.class);
+
+  private final boolean enabled;
+
+  private final long timeoutNanos;
+
+  private final Map<QueryKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  private final LongAdder executed = new LongAdder();
+
+  private final LongAdder coalesced = new LongAdder();
+
+  private final LongAdder timedOut = new LongAdder();
+
+  public QueryCoalescer(FilterQueryProperties properties) {
+    this.enabled = properties.coalesce();
+    this.timeoutNanos = properties.coalesceTimeout().toNanos();
+  }
+
+  /**
+   * Run the query of the request, or wait for the identical one in flight
+   *
+   * @param key    canonical request, including what is computed from its rows
+   * @param loader running the query
+   * @return the result of the query
+   */
+  @SuppressWarnings("unchecked")
+  public <R> R execute(QueryKey key, Supplier<R> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    CompletableFuture<Object> flight = new CompletableFuture<>();
+    CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+
+    if (leader != null) {
+      return (R) await(key, leader, loader);
+    }
+
+    executed.increment();
+
+    try {
+      R result = loader.get();
+      flight.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  private Object await(QueryKey key, CompletableFuture<Object> leader, Supplier<?> loader) {
+    try {
+      Object result = leader.get(timeoutNanos, TimeUnit.NANOSECONDS);
+      coalesced.increment();
+      return result;
+    } catch (TimeoutException e) {
+      LOGGER.debug("Gave up waiting for the query of {}", key);
+      timedOut.increment();
+      executed.increment();
+      return loader.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryFilterException("Interrupted while waiting for the query", e);
+    } catch (ExecutionException e) {
+      if (isOwnFailure(e.getCause())) {
+        LOGGER.debug("The query of {} failed for its execution alone, running it again", key);
+        return execute(key, loader);
+      }
+
+      coalesced.increment();
+
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new QueryFilterException("Unable to run the query: " + e.getCause().getMessage(),
+          e.getCause());
+    }
+  }
+
+  private static boolean isOwnFailure(Throwable failure) {
+    return failure instanceof QueryFilterCancelledException
+        || failure instanceof QueryFilterTimeoutException
+        || failure instanceof QueryFilterRejectedException;
+  }
+
+  /**
+   * @return the number of queries run against the database
+   */
+  public long executed() {
+    return executed.sum();
+  }
+
+  /**
+   * @return the number of executions served by the result of an identical query in flight
+   */
+  public long coalesced() {
+    return coalesced.sum();
+  }
+
+  /**
+   * @return the number of executions which stopped waiting and ran the query themselves
+   */
+  public long timedOut() {
+    return timedOut.sum();
+  }
+}
@@ -0,0 +1,38 @@
+package org.example.query.executor;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Statement timeouts of the filter queries, bound from the {@code query.filter.timeout}
+ * properties. The timeout of a request is the one of its {@link EndpointClass}, multiplied by the
+ * weight of its estimated cost up to {@code maxWeight}.
+ *
+ * @param interactive timeout of the interactive requests of weight 1
+ * @param report      timeout of the reports of weight 1
+ * @param export      timeout of the exports of weight 1
+ * @param maxWeight   highest multiplier of the timeouts
+ */
+@ConfigurationProperties(prefix = "query.filter.timeout")
+public record QueryTimeoutProperties(
+    @DefaultValue("5s") Duration interactive,
+    @DefaultValue("30s") Duration report,
+    @DefaultValue("5m") Duration export,
+    @DefaultValue("4") int maxWeight) {
+
+  /**
+   * @param endpointClass of the request
+   * @param weight        of the estimated cost of the request
+   * @return the statement timeout of the request
+   */
+  public Duration timeout(EndpointClass endpointClass, int weight) {
+    Duration base = switch (endpointClass) {
+      case INTERACTIVE -> interactive;
+      case REPORT -> report;
+      case EXPORT -> export;
+    };
+
+    return base.multipliedBy(Math.max(1, Math.min(weight, maxWeight)));
+  }
+}
@@ -0,0 +1,169 @@
+package org.example.query.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.metamodel.EntityType;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryParams;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jackson module serializing entities without ever loading their associations, so that rendering
+ * a response issues no SQL, with or without an open session.
+ * <p>
+ * An association is written in full only when it is initialized and, when the writer carries the
+ * {@link #EXPANDS} attribute, expanded by the request. Otherwise a to-one association is written
+ * as its id, read from the proxy or the entity without loading it, and a to-many association is
+ * omitted. Being a bean, the module is registered in the ObjectMapper of Spring Boot, where it
+ * applies the initialization check to every response.
+ * <p>
+ * A property is an association when its type, or the element type of its collection, is an entity
+ * of the JPA metamodel, whatever the name of its accessor.
+ *
+ * <pre>
+ * {@code
+ * String json = ExpandAwareModule.writerFor(objectMapper, queryParams).writeValueAsString(page);
+ * }
+ * </pre>
+ */
+@Component
+public class ExpandAwareModule extends SimpleModule {
+
+  /**
+   * Writer attribute holding the expand list of the request
+   */
+  public static final String EXPANDS = ExpandAwareModule.class.getName() + ".expands";
+
+  public ExpandAwareModule(EntityManagerFactory entityManagerFactory) {
+    super(ExpandAwareModule.class.getSimpleName());
+
+    Set<Class<?>> entityTypes = entityManagerFactory.getMetamodel().getEntities().stream()
+        .<Class<?>>map(EntityType::getJavaType)
+        .collect(Collectors.toSet());
+
+    setSerializerModifier(new BeanSerializerModifier() {
+      @Override
+      public List<BeanPropertyWriter> changeProperties(SerializationConfig config,
+          BeanDescription beanDescription, List<BeanPropertyWriter> properties) {
+
+        return properties.stream()
+            .map(property -> isAssociation(entityTypes, property)
+                ? new AssociationPropertyWriter(property)
+                : property)
+            .toList();
+      }
+    });
+  }
+
+  /**
+   * @param objectMapper with the module registered
+   * @param queryParams  request whose expands are written in full
+   * @return a writer bound to the expands of the request
+   */
+  public static ObjectWriter writerFor(ObjectMapper objectMapper, QueryParams queryParams) {
+    return objectMapper.writer().withAttribute(EXPANDS,
+        Optional.ofNullable(queryParams.expandList()).orElse(List.of()));
+  }
+
+  private static boolean isAssociation(Set<Class<?>> entityTypes, BeanPropertyWriter property) {
+    JavaType type = property.getType();
+    Class<?> target = type.isContainerType() && type.getContentType() != null
+        ? type.getContentType().getRawClass()
+        : type.getRawClass();
+
+    return entityTypes.stream().anyMatch(entityType -> entityType.isAssignableFrom(target));
+  }
+
+  /**
+   * Writes an association only when loaded and expanded, its id otherwise
+   */
+  static class AssociationPropertyWriter extends BeanPropertyWriter {
+
+    private static final Map<Class<?>, Optional<Field>> ID_FIELDS = new ConcurrentHashMap<>();
+
+    AssociationPropertyWriter(BeanPropertyWriter base) {
+      super(base);
+    }
+
+    @Override
+    public void serializeAsField(Object bean, JsonGenerator generator,
+        SerializerProvider provider) throws Exception {
+
+      // reading the proxy or the collection does not initialize it
+      Object value = get(bean);
+
+      if (value == null || (isExpanded(provider) && Hibernate.isInitialized(value))) {
+        if (value instanceof HibernateProxy) {
+          generator.writeFieldName(getName());
+          provider.defaultSerializeValue(Hibernate.unproxy(value), generator);
+        } else {
+          super.serializeAsField(bean, generator, provider);
+        }
+        return;
+      }
+
+      if (value instanceof Collection<?> || value instanceof Map<?, ?>) {
+        return;
+      }
+
+      Optional<Object> identifier = identifier(value);
+
+      if (identifier.isPresent()) {
+        generator.writeFieldName(getName());
+        provider.defaultSerializeValue(identifier.get(), generator);
+      }
+    }
+
+    private boolean isExpanded(SerializerProvider provider) {
+      return !(provider.getAttribute(EXPANDS) instanceof Collection<?> expands)
+          || expands.contains(getName());
+    }
+
+    private static Optional<Object> identifier(Object entity) {
+      if (entity instanceof HibernateProxy proxy) {
+        return Optional.ofNullable(proxy.getHibernateLazyInitializer().getInternalIdentifier());
+      }
+
+      return ID_FIELDS.computeIfAbsent(entity.getClass(), AssociationPropertyWriter::idField)
+          .map(field -> {
+            try {
+              return field.get(entity);
+            } catch (IllegalAccessException e) {
+              throw new QueryFilterException(e.getMessage(), e);
+            }
+          });
+    }
+
+    private static Optional<Field> idField(Class<?> entityClass) {
+      for (Class<?> type = entityClass; type != null; type = type.getSuperclass()) {
+        for (Field field : type.getDeclaredFields()) {
+          if (field.isAnnotationPresent(Id.class)) {
+            field.setAccessible(true); // NOSONAR
+            return Optional.of(field);
+          }
+        }
+      }
+      return Optional.empty();
+    }
+  }
+}
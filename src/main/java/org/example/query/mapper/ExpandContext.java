@@ -0,0 +1,51 @@
+package org.example.query.mapper;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.example.query.QueryParams;
+import org.hibernate.Hibernate;
+
+/**
+ * Passed along as a MapStruct {@code @Context} to the {@link FilterResultMapper}, to tell which
+ * associations of the request were expanded and whether an association was loaded, so that the
+ * generated code never touches the others.
+ *
+ * @param expands associations expanded by the request, including the ones joined by its filters
+ */
+public record ExpandContext(Set<String> expands) {
+
+  public ExpandContext(Set<String> expands) {
+    this.expands = Set.copyOf(expands);
+  }
+
+  public static ExpandContext from(QueryParams queryParams) {
+    return new ExpandContext(Set.copyOf(
+        Optional.ofNullable(queryParams.expandList()).orElse(List.of())));
+  }
+
+  /**
+   * @param association name of the relation, as in the expand list
+   * @return true when the request expanded the association
+   */
+  public boolean isExpanded(String association) {
+    return expands.contains(association);
+  }
+
+  /**
+   * @param value of an attribute, usually a lazy proxy or collection
+   * @return true when reading the value does not hit the database
+   */
+  public boolean isLoaded(Object value) {
+    return Hibernate.isInitialized(value);
+  }
+
+  /**
+   * @param association name of the relation, as in the expand list
+   * @param value       of the association
+   * @return true when the request expanded the association and it was loaded
+   */
+  public boolean isLoaded(String association, Object value) {
+    return isExpanded(association) && isLoaded(value);
+  }
+}
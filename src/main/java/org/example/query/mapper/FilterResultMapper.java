@@ -0,0 +1,32 @@
+package org.example.query.mapper;
+
+import java.util.List;
+import org.mapstruct.Condition;
+import org.mapstruct.Context;
+
+/**
+ * MapStruct mapper of the root entities of a filter request into DTOs, given to the
+ * {@link org.example.query.executor.FilterQueryExecutor} so that responses are built by generated
+ * code rather than by reflective Jackson introspection of the entities.
+ * <p>
+ * Every source property is guarded by {@link #isLoaded(Object, ExpandContext)}, so that an
+ * uninitialized proxy or collection is mapped to null instead of being loaded. Associations that
+ * must only be mapped when the request expanded them can state it on their mapping, e.g.
+ * {@code conditionExpression = "java(context.isLoaded(\"projects\", entity.getProjects()))"}.
+ *
+ * @param <E> root entity
+ * @param <D> DTO of the root entity
+ */
+public interface FilterResultMapper<E, D> {
+
+  D toDto(E entity, @Context ExpandContext context);
+
+  default List<D> toDtos(List<E> entities, @Context ExpandContext context) {
+    return entities.stream().map(entity -> toDto(entity, context)).toList();
+  }
+
+  @Condition
+  default boolean isLoaded(Object value, @Context ExpandContext context) {
+    return context.isLoaded(value);
+  }
+}
@@ -0,0 +1,22 @@
+package org.example.query.relation;
+
+/**
+ * Association between two entities of the model, as declared by the source entity
+ *
+ * @param name              attribute name of the association in the source entity
+ * @param sourceClass       entity declaring the association
+ * @param targetClass       associated entity, or the element type for to-many associations
+ * @param cardinality       whether the source has one or many target entities
+ * @param targetIdAttribute name of the identifier attribute of the target entity
+ */
+public record Relation(String name, Class<?> sourceClass, Class<?> targetClass,
+                       Cardinality cardinality, String targetIdAttribute) {
+
+  public enum Cardinality {
+    TO_ONE, TO_MANY
+  }
+
+  public boolean isToOne() {
+    return cardinality == Cardinality.TO_ONE;
+  }
+}
@@ -0,0 +1,234 @@
+package org.example.query.relation;
+
+import com.querydsl.core.types.dsl.EntityPathBase;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of the relations between the entities, built once at startup from the JPA metamodel and
+ * the generated Q-types. It replaces the hand-maintained maps of the services: association names,
+ * target classes, cardinality and multi-hop paths, e.g. Employee to projects to client, are
+ * precomputed in immutable lookup tables.
+ * <p>
+ * A relation name is resolved only when it is unambiguous: if the same attribute name targets
+ * different classes, or a name is reachable through different paths of the same length, the
+ * service has to resolve it by overriding the {@code QueryFilterService} methods.
+ */
+@Component
+public class RelationRegistry {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RelationRegistry.class);
+
+  /**
+   * Maximum number of associations in a multi-hop path
+   */
+  private static final int MAX_PATH_LENGTH = 3;
+
+  private final Map<String, Relation> relationsByName;
+
+  private final Map<Class<?>, Map<String, Relation>> relationsBySource;
+
+  private final Map<Class<?>, Map<String, List<Relation>>> pathsByRoot;
+
+  private final Map<Class<?>, EntityPathBase<?>> entityPaths;
+
+  @Autowired
+  public RelationRegistry(EntityManagerFactory entityManagerFactory) {
+    this(entityManagerFactory.getMetamodel());
+  }
+
+  public RelationRegistry(Metamodel metamodel) {
+    Map<Class<?>, Map<String, Relation>> bySource = new HashMap<>();
+    Map<String, Relation> byName = new HashMap<>();
+    Set<String> ambiguousNames = new HashSet<>();
+
+    for (EntityType<?> entityType : metamodel.getEntities()) {
+      Map<String, Relation> relations = new HashMap<>();
+
+      for (Attribute<?, ?> attribute : entityType.getAttributes()) {
+        if (attribute.isAssociation()) {
+          Relation relation = relation(metamodel, entityType.getJavaType(), attribute);
+          relations.put(relation.name(), relation);
+
+          Relation existing = byName.putIfAbsent(relation.name(), relation);
+          if (existing != null && !existing.targetClass().equals(relation.targetClass())) {
+            ambiguousNames.add(relation.name());
+          }
+        }
+      }
+      bySource.put(entityType.getJavaType(), Map.copyOf(relations));
+    }
+
+    ambiguousNames.forEach(byName::remove);
+
+    this.relationsBySource = Map.copyOf(bySource);
+    this.relationsByName = Map.copyOf(byName);
+
+    Map<Class<?>, Map<String, List<Relation>>> byRoot = new HashMap<>();
+    Map<Class<?>, EntityPathBase<?>> paths = new HashMap<>();
+
+    for (Class<?> root : relationsBySource.keySet()) {
+      byRoot.put(root, paths(root));
+      entityPathFromQType(root).ifPresent(path -> paths.put(root, path));
+    }
+
+    this.pathsByRoot = Map.copyOf(byRoot);
+    this.entityPaths = Map.copyOf(paths);
+  }
+
+  /**
+   * @param name of the association
+   * @return the relation with the given name, if it is unambiguous across the model
+   */
+  public Optional<Relation> relation(String name) {
+    return Optional.ofNullable(relationsByName.get(name));
+  }
+
+  /**
+   * @param sourceClass entity declaring the association
+   * @param name        of the association
+   * @return the relation declared by the source entity with the given name
+   */
+  public Optional<Relation> relation(Class<?> sourceClass, String name) {
+    return Optional.ofNullable(relationsBySource.getOrDefault(sourceClass, Map.of()).get(name));
+  }
+
+  /**
+   * @param rootClass root entity of the path
+   * @param name      of the last association of the path
+   * @return the shortest path of associations from the root entity to the one with the given
+   * name, if it is unique
+   */
+  public Optional<List<Relation>> path(Class<?> rootClass, String name) {
+    return Optional.ofNullable(pathsByRoot.getOrDefault(rootClass, Map.of()).get(name));
+  }
+
+  /**
+   * @param entityClass the entity class
+   * @return the default instance of the generated Q-type of the entity, if any
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Optional<EntityPathBase<T>> entityPath(Class<T> entityClass) {
+    return Optional.ofNullable((EntityPathBase<T>) entityPaths.get(entityClass));
+  }
+
+  /**
+   * @return the entity classes of the model
+   */
+  public Set<Class<?>> entityClasses() {
+    return relationsBySource.keySet();
+  }
+
+  private static Relation relation(Metamodel metamodel, Class<?> sourceClass,
+      Attribute<?, ?> attribute) {
+
+    Class<?> targetClass = attribute instanceof PluralAttribute<?, ?, ?> pluralAttribute
+        ? pluralAttribute.getElementType().getJavaType()
+        : attribute.getJavaType();
+
+    return new Relation(
+        attribute.getName(),
+        sourceClass,
+        targetClass,
+        attribute.isCollection() ? Relation.Cardinality.TO_MANY : Relation.Cardinality.TO_ONE,
+        idAttribute(metamodel, targetClass));
+  }
+
+  private static String idAttribute(Metamodel metamodel, Class<?> entityClass) {
+    try {
+      EntityType<?> entityType = metamodel.entity(entityClass);
+
+      return entityType.hasSingleIdAttribute()
+          ? entityType.getId(entityType.getIdType().getJavaType()).getName()
+          : null;
+    } catch (IllegalArgumentException e) {
+      LOGGER.debug("{} is not an entity {}", entityClass.getName(), e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Breadth first visit of the associations from the root entity, keeping the shortest path to
+   * each association name. Names reachable through more than one shortest path are ambiguous and
+   * left out. An entity is never visited twice on the same path.
+   */
+  private Map<String, List<Relation>> paths(Class<?> root) {
+    Map<String, List<Relation>> shortest = new HashMap<>();
+    Set<String> ambiguous = new HashSet<>();
+
+    Deque<List<Relation>> queue = new ArrayDeque<>();
+    relationsBySource.get(root).values().forEach(relation -> queue.add(List.of(relation)));
+
+    while (!queue.isEmpty()) {
+      List<Relation> path = queue.poll();
+      Relation last = path.get(path.size() - 1);
+
+      List<Relation> existing = shortest.putIfAbsent(last.name(), path);
+
+      if (existing != null) {
+        if (existing.size() == path.size() && !existing.equals(path)) {
+          ambiguous.add(last.name());
+        }
+        continue;
+      }
+
+      if (path.size() < MAX_PATH_LENGTH) {
+        for (Relation next : relationsBySource.getOrDefault(last.targetClass(), Map.of())
+            .values()) {
+          boolean visited = Objects.equals(next.targetClass(), root) || path.stream()
+              .anyMatch(relation -> relation.targetClass().equals(next.targetClass()));
+
+          if (!visited) {
+            List<Relation> nextPath = new ArrayList<>(path);
+            nextPath.add(next);
+            queue.add(List.copyOf(nextPath));
+          }
+        }
+      }
+    }
+
+    ambiguous.forEach(shortest::remove);
+
+    return Map.copyOf(shortest);
+  }
+
+  /**
+   * Find the default instance of the Q-type generated for the entity, e.g. QEmployee.employee
+   */
+  private static Optional<EntityPathBase<?>> entityPathFromQType(Class<?> entityClass) {
+    String qTypeName = entityClass.getPackageName() + ".Q" + entityClass.getSimpleName();
+
+    try {
+      Class<?> qType = Class.forName(qTypeName, true, entityClass.getClassLoader());
+
+      for (Field field : qType.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers()) && field.getType().equals(qType)) {
+          return Optional.of((EntityPathBase<?>) field.get(null));
+        }
+      }
+    } catch (ClassNotFoundException | IllegalAccessException e) {
+      LOGGER.debug("No Q-type found for {} {}", entityClass.getName(), e.getMessage());
+    }
+
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,15 @@
+package org.example.query.routing;
+
+/**
+ * Database a connection is taken from
+ */
+public enum DataSourceRoute {
+  /**
+   * The primary database, taking the writes
+   */
+  PRIMARY,
+  /**
+   * A read replica of the primary database, possibly lagging behind it
+   */
+  REPLICA
+}
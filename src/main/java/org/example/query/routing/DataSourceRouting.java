@@ -0,0 +1,89 @@
+package org.example.query.routing;
+
+import java.util.function.Supplier;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Route of the connections taken by the current thread. By default, read-only transactions go to
+ * the replica and everything else to the primary. A call can request a route explicitly, e.g. the
+ * primary to read its own writes:
+ *
+ * <pre>
+ * {@code
+ * Page<EmployeeDto> page = DataSourceRouting.on(DataSourceRoute.PRIMARY,
+ *     () -> executor.findPage(employeeFilterService, QEmployee.employee, queryParams, mapper));
+ * }
+ * </pre>
+ * <p>
+ * The route is decided when the connection is actually taken, i.e. at the first statement of the
+ * transaction, see {@link ReplicaRoutingConfiguration}.
+ */
+public final class DataSourceRouting {
+
+  private static final ThreadLocal<DataSourceRoute> REQUESTED = new ThreadLocal<>();
+
+  private DataSourceRouting() {
+  }
+
+  /**
+   * Run the work with the connections of the current thread taken from the route
+   *
+   * @param route of the connections, null to keep the current one
+   * @param work  to run
+   * @return the result of the work
+   */
+  public static <R> R on(DataSourceRoute route, Supplier<R> work) {
+    if (route == null) {
+      return work.get();
+    }
+
+    DataSourceRoute previous = REQUESTED.get();
+    REQUESTED.set(route);
+
+    try {
+      return work.get();
+    } finally {
+      if (previous == null) {
+        REQUESTED.remove();
+      } else {
+        REQUESTED.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Run the work with the connections of the current thread taken from the route
+   *
+   * @param route of the connections, null to keep the current one
+   * @param work  to run
+   */
+  public static void on(DataSourceRoute route, Runnable work) {
+    on(route, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  /**
+   * @return the route explicitly requested by the current thread, null if none
+   */
+  public static DataSourceRoute requested() {
+    return REQUESTED.get();
+  }
+
+  /**
+   * @return the requested route, otherwise the replica within a read-only transaction and the
+   * primary elsewhere
+   */
+  public static DataSourceRoute current() {
+    DataSourceRoute requested = REQUESTED.get();
+
+    if (requested != null) {
+      return requested;
+    }
+
+    return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        ? DataSourceRoute.REPLICA
+        : DataSourceRoute.PRIMARY;
+  }
+}
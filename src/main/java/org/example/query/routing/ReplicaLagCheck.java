@@ -0,0 +1,15 @@
+package org.example.query.routing;
+
+/**
+ * Tells whether the replica is close enough to the primary to be read from, e.g. by comparing its
+ * replay timestamp with the current time. It is called each time a connection is routed to the
+ * replica, implementations should cache their measure rather than query the replica every time.
+ */
+@FunctionalInterface
+public interface ReplicaLagCheck {
+
+  /**
+   * @return true if the replica can be read from, false to read from the primary instead
+   */
+  boolean isReplicaUsable();
+}
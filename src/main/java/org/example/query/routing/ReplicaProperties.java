@@ -0,0 +1,17 @@
+package org.example.query.routing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Connection to the read replica, bound from the {@code query.filter.replica} properties. Its pool
+ * is configured by the {@code query.filter.replica.hikari} ones, see
+ * {@link ReplicaRoutingConfiguration}.
+ *
+ * @param url      JDBC url of the replica, routing is enabled when it is set
+ * @param username of the replica
+ * @param password of the replica
+ */
+@ConfigurationProperties(prefix = "query.filter.replica")
+public record ReplicaProperties(String url, String username, String password) {
+
+}
@@ -0,0 +1,66 @@
+package org.example.query.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Routes the connections between the primary, configured by the {@code spring.datasource}
+ * properties, and the read replica, configured by the {@code query.filter.replica} ones, when the
+ * latter are set.
+ * <p>
+ * Both are Hikari pools, bound as Spring Boot binds its own: the primary from the
+ * {@code spring.datasource.hikari} properties, the replica from the
+ * {@code query.filter.replica.hikari} ones.
+ * <p>
+ * The routing data source is wrapped in a {@link LazyConnectionDataSourceProxy}: the transaction
+ * manager takes its connection when the transaction begins, before the transaction is known to be
+ * read-only, while the proxy only takes the actual connection at the first statement.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "query.filter.replica", name = "url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfiguration {
+
+  @Bean
+  @ConfigurationProperties(prefix = "spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+  }
+
+  @Bean
+  @ConfigurationProperties(prefix = "query.filter.replica.hikari")
+  public HikariDataSource replicaDataSource(ReplicaProperties replicaProperties) {
+    HikariDataSource replica = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(replicaProperties.url())
+        .username(replicaProperties.username())
+        .password(replicaProperties.password())
+        .build();
+    replica.setPoolName("replica");
+
+    return replica;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      ObjectProvider<ReplicaLagCheck> replicaLagCheck) {
+
+    return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica,
+        replicaLagCheck.getIfAvailable(() -> () -> true)));
+  }
+}
@@ -0,0 +1,41 @@
+package org.example.query.routing;
+
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Data source taking its connections from the primary or the replica, following
+ * {@link DataSourceRouting#current()}. Connections routed to the replica go to the primary while
+ * the {@link ReplicaLagCheck} deems it too far behind.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+  private final ReplicaLagCheck replicaLagCheck;
+
+  public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+      ReplicaLagCheck replicaLagCheck) {
+    this.replicaLagCheck = replicaLagCheck;
+
+    setTargetDataSources(Map.of(DataSourceRoute.PRIMARY, primary,
+        DataSourceRoute.REPLICA, replica));
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    DataSourceRoute route = DataSourceRouting.current();
+
+    if (route == DataSourceRoute.REPLICA && !replicaLagCheck.isReplicaUsable()) {
+      LOGGER.debug("Replica is lagging, reading from the primary");
+      return DataSourceRoute.PRIMARY;
+    }
+
+    return route;
+  }
+}
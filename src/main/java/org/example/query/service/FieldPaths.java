@@ -0,0 +1,36 @@
+package org.example.query.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.example.query.Join;
+
+/**
+ * Cache of the sort and selected properties resolved to the joins and the field they designate,
+ * per filter service and root entity. Resolving a property walks the relations and reflects on the
+ * entity fields, and the same few properties are requested over and over.
+ */
+final class FieldPaths {
+
+  private static final Map<List<Class<?>>, Map<String, FieldPath>> CACHE =
+      new ConcurrentHashMap<>();
+
+  private FieldPaths() {
+  }
+
+  static FieldPath resolve(Class<?> serviceType, Class<?> rootType, String property,
+      Function<String, FieldPath> resolver) {
+
+    return CACHE.computeIfAbsent(List.of(serviceType, rootType), key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(property, resolver);
+  }
+
+  /**
+   * @param joins     from the root entity to the entity declaring the field
+   * @param fieldName field of that entity
+   */
+  record FieldPath(List<Join> joins, String fieldName) {
+
+  }
+}
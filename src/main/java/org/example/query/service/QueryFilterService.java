@@ -4,17 +4,34 @@ import static com.querydsl.core.types.dsl.Expressions.dateTemplate;
 import static java.util.stream.Collectors.toSet;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Path;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpression;
 import com.querydsl.core.types.dsl.DateExpression;
 import com.querydsl.core.types.dsl.EntityPathBase;
 import com.querydsl.core.types.dsl.EnumPath;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.core.types.dsl.StringPath;
 import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.Subgraph;
+import jakarta.persistence.metamodel.EntityType;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -22,20 +39,57 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.example.query.CursorPage;
+import org.example.query.ExpandStrategy;
 import org.example.query.Join;
+import org.example.query.QueryCost;
 import org.example.query.QueryFilter;
 import org.example.query.QueryFilterException;
+import org.example.query.QueryParams;
+import org.example.query.cache.ReferenceDataCache;
+import org.example.query.relation.Relation;
+import org.example.query.relation.RelationRegistry;
+import org.example.query.service.FieldPaths.FieldPath;
+import org.hibernate.Hibernate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 
 public interface QueryFilterService {
 
@@ -109,14 +163,22 @@ public interface QueryFilterService {
 
     Set<String> appliedJoins = new HashSet<>();
 
-    for (QueryFilter queryFilter : queryFilters) {
+    List<QueryFilter> plannedFilters = queryFilters.stream()
+        .map(queryFilter -> withReferenceDataIds(rootEntity.getType(), queryFilter))
+        .map(queryFilter -> withoutForeignKeyJoin(rootEntity.getType(), queryFilter))
+        .toList();
+
+    Set<String> innerJoins = promoteInnerJoins() ? nullRejectedJoins(plannedFilters) : Set.of();
+
+    for (QueryFilter queryFilter : plannedFilters) {
 
       List<Join> joins = queryFilter.joins();
       joins.forEach(j -> appliedJoins.add(j.entityToJoin()));
 
       booleanBuilder.and(
           buildPredicatesForObject(
-              pathBuilder(query, rootEntity, joins, projection), queryFilter.fieldName(),
+              pathBuilder(query, rootEntity, joins, projection, innerJoins),
+              queryFilter.fieldName(),
               queryFilter.value()
           ));
     }
@@ -125,7 +187,7 @@ public interface QueryFilterService {
         .collect(toSet());
 
     for (String expand : finalJoinList) {
-      if (!appliedJoins.contains(expand)) {
+      if (!appliedJoins.contains(expand) && expandStrategy() == ExpandStrategy.FETCH_JOIN) {
         applyJoinFromExpand(query, rootEntity, expand, projection);
       }
     }
@@ -133,6 +195,822 @@ public interface QueryFilterService {
     return booleanBuilder.and(defaultPredicate(query, rootEntity));
   }
 
+  /**
+   * Fetch a page of root entities in two phases. Fetch joins on collections make Hibernate apply
+   * the page limits in memory (HHH000104) after loading the whole result set, so the first query
+   * selects only the distinct root ids of the requested page, with filters and sort, and the second
+   * one loads the entity graph for exactly those ids.
+   *
+   * @param entityManager to create both queries with
+   * @param rootEntity    DO root entity
+   * @param queryParams   filters, pagination and expands from the request
+   * @return the root entities of the requested page, in the order of the requested sort
+   */
+  default <T> List<T> fetchPage(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams) {
+
+    PageRequest pageRequest = queryParams.pageRequest();
+
+    return pageRequest == null
+        ? fetchRange(entityManager, rootEntity, queryParams, 0, null, null)
+        : fetchRange(entityManager, rootEntity, queryParams, pageRequest.getOffset(),
+            pageRequest.getPageSize(), null);
+  }
+
+  /**
+   * Stream all the root entities matching the filters, in id order, with a single query read
+   * through a forward-only cursor. The filters go into an id subquery, so that their joins cannot
+   * repeat root rows, and the persistence context is cleared after every fetch size rows to keep
+   * the memory constant whatever the number of rows. The entities handed to the consumer are
+   * therefore detached soon after, and their expands are not loaded.
+   *
+   * @param entityManager to run the query with, within a transaction
+   * @param rootEntity    DO root entity
+   * @param queryParams   filters from the request
+   * @param fetchSize     number of rows fetched from the database at a time
+   * @param consumer      called with each root entity, in id order
+   */
+  default <T> void scroll(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      int fetchSize,
+      Consumer<T> consumer) {
+
+    String idAttribute = idAttribute(entityManager, rootEntity.getType());
+    PathBuilder<T> rootPath = new PathBuilder<>(rootEntity.getType(), rootEntity.getMetadata());
+
+    PathBuilder<T> filtered = new PathBuilder<>(rootEntity.getType(),
+        rootEntity.getMetadata().getName() + "Filtered");
+    JPAQuery<Object> filteredIds = new JPAQuery<>()
+        .select(Expressions.path(Object.class, filtered, idAttribute))
+        .from(filtered);
+    filteredIds.where(predicateFrom(queryParams.queryFilter(), filtered, filteredIds, List.of()));
+
+    org.hibernate.query.Query<?> query = new JPAQueryFactory(entityManager)
+        .selectFrom(rootEntity)
+        .where(rootPath.get(idAttribute).in(filteredIds))
+        .orderBy(new OrderSpecifier<>(Order.ASC, rootPath.getComparable(idAttribute,
+            Comparable.class)))
+        .createQuery()
+        .unwrap(org.hibernate.query.Query.class)
+        .setFetchSize(fetchSize)
+        .setReadOnly(true);
+
+    Session session = entityManager.unwrap(Session.class);
+    long rows = 0;
+
+    try (ScrollableResults<?> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+      while (results.next()) {
+        consumer.accept(rootEntity.getType().cast(results.get()));
+
+        if (++rows % fetchSize == 0) {
+          session.clear();
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetch the requested page of root entities as a {@link Slice}, without counting the matching
+   * entities. One row past the page is fetched to tell whether there is a next page, which is all
+   * an infinite scroll needs and saves the count query, often the most expensive of the two.
+   *
+   * @param entityManager to run the queries with
+   * @param rootEntity    DO root entity
+   * @param queryParams   filters, pagination and expands from the request
+   * @return the requested slice, with all the matching entities when the request is unpaged
+   */
+  default <T> Slice<T> fetchSlice(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams) {
+
+    PageRequest pageRequest = queryParams.pageRequest();
+
+    if (pageRequest == null) {
+      return new SliceImpl<>(fetchRange(entityManager, rootEntity, queryParams, 0, null, null));
+    }
+
+    List<T> content = fetchRange(entityManager, rootEntity, queryParams, pageRequest.getOffset(),
+        pageRequest.getPageSize() + 1, null);
+    boolean hasNext = content.size() > pageRequest.getPageSize();
+
+    return new SliceImpl<>(hasNext ? content.subList(0, pageRequest.getPageSize()) : content,
+        pageRequest, hasNext);
+  }
+
+  /**
+   * Fetch the requested page as rows of the selected fields only, e.g. {@code name} and
+   * {@code department.name}, instead of full entities. The ids of the page are selected like in
+   * {@link #fetchPage}, then a tuple projection of the fields, joined like the filters, is read
+   * for them. The rows are plain maps, unknown to the persistence context, so neither the unneeded
+   * columns nor the snapshots of the dirty checking are loaded.
+   *
+   * @param entityManager to run the queries with
+   * @param rootEntity    DO root entity
+   * @param queryParams   filters and pagination from the request, the expands are ignored
+   * @param fields        properties to select, on the root entity or a to-one relation
+   * @return a row per root entity of the page, from field to value, in the requested order
+   */
+  default <T> List<Map<String, Object>> fetchFields(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      List<String> fields) {
+
+    if (fields.isEmpty()) {
+      throw new QueryFilterException("At least one field must be selected");
+    }
+
+    PathBuilder<Object> idPath = idPath(entityManager, rootEntity);
+    JPAQuery<Tuple> idQuery = idQuery(entityManager, rootEntity, queryParams, idPath, false,
+        new ArrayList<>(), List.of());
+
+    PageRequest pageRequest = queryParams.pageRequest();
+    if (pageRequest != null) {
+      idQuery.offset(pageRequest.getOffset()).limit(pageRequest.getPageSize());
+    }
+
+    List<Object> ids = withFetchSize(idQuery,
+        pageRequest == null ? null : (long) pageRequest.getPageSize()).fetch().stream()
+        .map(tuple -> tuple.get(idPath))
+        .distinct()
+        .toList();
+
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    JPAQuery<Tuple> query = new JPAQueryFactory(entityManager)
+        .select(new Expression<?>[]{idPath})
+        .from(rootEntity);
+
+    Map<String, Expression<?>> columns = new LinkedHashMap<>();
+    for (String field : fields) {
+      FieldPath fieldPath = selectedFieldPath(entityManager, rootEntity.getType(), field);
+
+      columns.put(field, pathBuilder(query, rootEntity, fieldPath.joins(),
+          query.getMetadata().getProjection(), Set.of())
+          .getSimple(fieldPath.fieldName(), Object.class));
+    }
+
+    List<Expression<?>> selection = new ArrayList<>();
+    selection.add(idPath);
+    selection.addAll(columns.values());
+
+    List<Tuple> tuples = withFetchSize(
+        query.select(Projections.tuple(selection.toArray(new Expression<?>[0])))
+            .where(idPath.in(ids)),
+        (long) ids.size())
+        .fetch();
+
+    Map<Object, Integer> positions = new HashMap<>();
+    for (int i = 0; i < ids.size(); i++) {
+      positions.put(ids.get(i), i);
+    }
+
+    return tuples.stream()
+        .sorted(Comparator.comparingInt(tuple -> positions.get(tuple.get(idPath))))
+        .map(tuple -> {
+          Map<String, Object> row = new LinkedHashMap<>();
+          columns.forEach((field, column) -> row.put(field, tuple.get(column)));
+          return row;
+        })
+        .toList();
+  }
+
+  /**
+   * Entity types the queries of a request read, for caches to know which changes make their
+   * results stale: the root entity and every entity joined by the filters, the expands, the
+   * default joins, the sort and the selected fields
+   *
+   * @param rootType    class of the DO root entity
+   * @param queryParams request
+   * @param fields      selected fields of the request, if any
+   * @return the entity types read for the request
+   */
+  default Set<Class<?>> entityTypes(Class<?> rootType, QueryParams queryParams,
+      List<String> fields) {
+
+    PageRequest pageRequest = queryParams.pageRequest();
+
+    Stream<String> filterJoins = queryParams.queryFilter().stream()
+        .flatMap(queryFilter -> queryFilter.joins().stream())
+        .map(Join::entityToJoin);
+    Stream<String> expandJoins = Stream.concat(
+            Optional.ofNullable(queryParams.expandList()).orElse(List.of()).stream(),
+            defaultJoins().stream())
+        .flatMap(expand -> expandsFrom(rootType, expand).stream());
+    Stream<String> sortJoins = (pageRequest == null ? Sort.unsorted() : pageRequest.getSort())
+        .stream()
+        .flatMap(order -> sortPath(rootType, order.getProperty()).joins().stream())
+        .map(Join::entityToJoin);
+    Stream<String> fieldJoins = fields.stream()
+        .flatMap(field -> FieldPaths.resolve(getClass(), rootType, field,
+            key -> resolveFieldPath(rootType, key)).joins().stream())
+        .map(Join::entityToJoin);
+
+    Set<Class<?>> entityTypes = new HashSet<>();
+    entityTypes.add(rootType);
+
+    Stream.of(filterJoins, expandJoins, sortJoins, fieldJoins)
+        .flatMap(joins -> joins)
+        .filter(entityToJoin -> !isRoot(entityToJoin))
+        .map(this::doFrom)
+        .filter(Objects::nonNull)
+        .forEach(entityTypes::add);
+
+    return entityTypes;
+  }
+
+  /**
+   * Estimate the cost of a request from its shape: the size of its {@code in} lists, its filters
+   * through to-many relations, its {@code like} conditions with a leading wildcard and whether it
+   * is paged
+   *
+   * @param queryParams filters and pagination from the request
+   * @return the estimated cost of the request
+   */
+  default QueryCost estimateCost(QueryParams queryParams) {
+    int inValues = 0;
+    int toManyJoins = 0;
+    int leadingWildcards = 0;
+
+    for (QueryFilter queryFilter : queryParams.queryFilter()) {
+      String[] parts = parseConditionAndValue(queryFilter.value().toString());
+      String value = parts[0];
+      ConditionType condition =
+          parts.length == 2 ? ConditionType.from(parts[1].toLowerCase()) : ConditionType.EQ;
+
+      if (condition == ConditionType.IN || condition == ConditionType.NIN) {
+        inValues += inSplitValues(value).size();
+      } else if ((condition == ConditionType.LIKE || condition == ConditionType.NLIKE)
+          && (value.startsWith("*") || value.startsWith("%"))) {
+        leadingWildcards++;
+      }
+
+      // the root entity is unknown, the first relation of the joins is resolved by name
+      if (throughToMany(null, queryFilter.joins())) {
+        toManyJoins++;
+      }
+    }
+
+    return new QueryCost(inValues, toManyJoins, leadingWildcards,
+        queryParams.pageRequest() == null);
+  }
+
+  /**
+   * Fetch the requested page of root entities together with the total number of matching
+   * entities, in a single round trip when possible: {@code count(*) over()} is added to the page
+   * query and the total is read from its first row. The window function is evaluated before the
+   * distinct, so this only holds when no join of the query can multiply the root rows, i.e. all of
+   * them are to-one relations of the registry. Otherwise, or when the dialect has no window
+   * functions, the fallback count is used. It is also used when the requested page lies beyond the
+   * end of the result, as no row then carries the total.
+   *
+   * @param entityManager to run the queries with
+   * @param rootEntity    DO root entity
+   * @param queryParams   filters, pagination and expands from the request
+   * @param count         separate count query, run only when the window function cannot be used
+   * @return the requested page
+   */
+  default <T> Page<T> fetchPageWithTotal(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      LongSupplier count) {
+
+    PageRequest pageRequest = queryParams.pageRequest();
+    Pageable pageable = pageRequest == null ? Pageable.unpaged() : pageRequest;
+
+    if (!supportsWindowCount(entityManager, rootEntity.getType(), queryParams.queryFilter())) {
+      return PageableExecutionUtils.getPage(fetchPage(entityManager, rootEntity, queryParams),
+          pageable, count);
+    }
+
+    AtomicLong total = new AtomicLong(-1);
+    List<T> content = pageRequest == null
+        ? fetchRange(entityManager, rootEntity, queryParams, 0, null, total)
+        : fetchRange(entityManager, rootEntity, queryParams, pageRequest.getOffset(),
+            pageRequest.getPageSize(), total);
+
+    if (total.get() < 0) {
+      return pageable.isPaged() && pageable.getOffset() > 0
+          ? new PageImpl<>(content, pageable, count.getAsLong())
+          : new PageImpl<>(content, pageable, 0);
+    }
+
+    return new PageImpl<>(content, pageable, total.get());
+  }
+
+  /**
+   * Fetch the page after the given position of the requested sort, by seeking to it instead of
+   * skipping the rows before it. The sort, completed with the id as tie-breaker, becomes a
+   * predicate ANDed with the filters, e.g. {@code name > :name or (name = :name and id > :id)}, so
+   * the cost of a page does not depend on its depth. Nulls are ordered first so that the seek is
+   * the same on every dialect. The offset of the page request is ignored, its size and sort are
+   * used.
+   *
+   * @param entityManager to run the queries with
+   * @param rootEntity    DO root entity
+   * @param queryParams   filters, page size, sort and expands from the request
+   * @param after         key of the last row of the previous page, null for the first page
+   * @param cursorOf      encoding the key of the last row into the cursor of the next page
+   * @return the page, with the cursor of the next one when there is a next page
+   */
+  default <T> CursorPage<T> fetchKeyset(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      List<Object> after,
+      Function<List<Object>, String> cursorOf) {
+
+    PageRequest pageRequest = queryParams.pageRequest();
+
+    if (pageRequest == null) {
+      throw new QueryFilterException("Keyset pagination requires a page size");
+    }
+
+    PathBuilder<Object> idPath = idPath(entityManager, rootEntity);
+    List<OrderSpecifier<?>> orders = new ArrayList<>();
+
+    JPAQuery<Tuple> idQuery = idQuery(entityManager, rootEntity, queryParams, idPath, true,
+        orders, List.of());
+
+    if (after != null) {
+      if (after.size() != orders.size()) {
+        throw new QueryFilterException("The position does not match the sort of the request");
+      }
+
+      // aggregated sort values of a grouped query can only be compared after the grouping
+      if (idQuery.getMetadata().getGroupBy().isEmpty()) {
+        idQuery.where(seekPredicate(orders, after));
+      } else {
+        idQuery.having(seekPredicate(orders, after));
+      }
+    }
+
+    List<Tuple> rows = withFetchSize(idQuery.limit(pageRequest.getPageSize() + 1L),
+        pageRequest.getPageSize() + 1L).fetch();
+    boolean hasNext = rows.size() > pageRequest.getPageSize();
+
+    if (hasNext) {
+      rows = rows.subList(0, pageRequest.getPageSize());
+    }
+
+    Tuple last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+    List<Object> lastKey = hasNext && last != null
+        ? orders.stream().<Object>map(order -> last.get(order.getTarget())).toList()
+        : null;
+
+    return new CursorPage<>(
+        loadRoots(entityManager, rootEntity, queryParams, idPath,
+            rows.stream().map(tuple -> tuple.get(idPath)).distinct().toList()),
+        lastKey == null ? null : cursorOf.apply(lastKey));
+  }
+
+  private <T> List<T> fetchRange(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      long offset,
+      Integer limit,
+      AtomicLong windowTotal) {
+
+    PathBuilder<Object> idPath = idPath(entityManager, rootEntity);
+
+    NumberExpression<Long> windowCount = Expressions.numberTemplate(Long.class,
+        "count(*) over()");
+
+    JPAQuery<Tuple> idQuery = idQuery(entityManager, rootEntity, queryParams, idPath, false,
+        new ArrayList<>(), windowTotal == null ? List.of() : List.of(windowCount));
+
+    if (limit != null) {
+      idQuery.offset(offset).limit(limit);
+    }
+
+    List<Tuple> rows = withFetchSize(idQuery, limit == null ? null : limit.longValue()).fetch();
+
+    if (windowTotal != null && !rows.isEmpty()) {
+      windowTotal.set(Optional.ofNullable(rows.get(0).get(windowCount)).orElse(0L));
+    }
+
+    return loadRoots(entityManager, rootEntity, queryParams, idPath,
+        rows.stream().map(tuple -> tuple.get(idPath)).distinct().toList());
+  }
+
+  /**
+   * First phase of a page: the ids of the root entities matching the filters, in the requested
+   * order. The ids are made distinct, or grouped when the sort goes through a to-many relation, in
+   * which case a root entity is ordered by its lowest value, or its highest one for a descending
+   * order.
+   *
+   * @param orders filled with the order of the query, completed with the id as tie-breaker
+   */
+  private <T> JPAQuery<Tuple> idQuery(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      PathBuilder<Object> idPath,
+      boolean nullsFirst,
+      List<OrderSpecifier<?>> orders,
+      List<Expression<?>> additionalSelection) {
+
+    // a tuple projection, the joins of the filters and the sort must not be fetch joins
+    JPAQuery<Tuple> query = new JPAQueryFactory(entityManager)
+        .select(new Expression<?>[]{idPath})
+        .from(rootEntity);
+
+    query.where(predicateFrom(queryParams.queryFilter(), rootEntity, query, List.of()));
+
+    PageRequest pageRequest = queryParams.pageRequest();
+    Sort sort = pageRequest == null ? Sort.unsorted() : pageRequest.getSort();
+    boolean grouped = sortsThroughToMany(rootEntity.getType(), sort);
+
+    orderSpecifiers(query, rootEntity, idPath, sort, grouped).stream()
+        .map(order -> nullsFirst ? order.nullsFirst() : order)
+        .forEach(orders::add);
+
+    // sort expressions must be selected as well for the distinct to be valid
+    List<Expression<?>> selection = new ArrayList<>();
+    selection.add(idPath);
+    orders.forEach(order -> selection.add(order.getTarget()));
+    selection.addAll(additionalSelection);
+
+    JPAQuery<Tuple> idQuery = query.select(selection.toArray(new Expression<?>[0]));
+
+    if (grouped) {
+      idQuery.groupBy(idPath);
+    } else {
+      idQuery.distinct();
+    }
+
+    return idQuery.orderBy(orders.toArray(new OrderSpecifier<?>[0]));
+  }
+
+  /**
+   * Second phase of a page: the root entities with their expands, for exactly the given ids and
+   * in their order
+   */
+  private <T> List<T> loadRoots(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      QueryParams queryParams,
+      PathBuilder<Object> idPath,
+      List<Object> ids) {
+
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    JPAQuery<T> fetchQuery = new JPAQueryFactory(entityManager)
+        .selectFrom(rootEntity)
+        .where(idPath.in(ids));
+
+    if (expandStrategy() == ExpandStrategy.FETCH_JOIN) {
+      fetchJoinChains(fetchQuery, rootEntity, expandChains(rootEntity.getType(),
+          queryParams.queryFilter(), queryParams.expandList()));
+    } else if (expandStrategy() == ExpandStrategy.ENTITY_GRAPH) {
+      fetchQuery.setHint(SpecHints.HINT_SPEC_FETCH_GRAPH,
+          expandGraph(entityManager, rootEntity.getType(), queryParams));
+    }
+
+    // fetch joins of to-many expands repeat the root rows, their number is unknown
+    List<T> entities = withFetchSize(fetchQuery, null).fetch();
+
+    if (expandStrategy() == ExpandStrategy.BATCH) {
+      loadExpands(entityManager, rootEntity, entities, queryParams);
+    }
+
+    PersistenceUnitUtil persistenceUnitUtil =
+        entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+
+    Map<Object, Integer> positions = new HashMap<>();
+    for (int i = 0; i < ids.size(); i++) {
+      positions.put(ids.get(i), i);
+    }
+
+    return entities.stream()
+        .distinct()
+        .sorted(Comparator.comparingInt(
+            entity -> positions.get(persistenceUnitUtil.getIdentifier(entity))))
+        .toList();
+  }
+
+  /**
+   * Hint the driver to fetch the rows of a list query in as few round trips as possible, rather
+   * than by its default fetch size, e.g. 10 rows with Oracle
+   *
+   * @param rows number of rows the query returns at most, null when unknown
+   */
+  private <Q extends JPAQuery<?>> Q withFetchSize(Q query, Long rows) {
+    query.setHint(HibernateHints.HINT_FETCH_SIZE,
+        rows == null ? fetchSize() : (int) Math.max(1, Math.min(rows, fetchSize())));
+    return query;
+  }
+
+  private <T> PathBuilder<Object> idPath(EntityManager entityManager,
+      EntityPathBase<T> rootEntity) {
+
+    return new PathBuilder<>(rootEntity.getType(), rootEntity.getMetadata())
+        .get(idAttribute(entityManager, rootEntity.getType()));
+  }
+
+  /**
+   * Rows strictly after the given key in the order of the sort. With nulls ordered first, the rows
+   * after a null value are the non-null ones, and the rows after a value are the greater ones, or
+   * the lower ones for a descending order.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private Predicate seekPredicate(List<OrderSpecifier<?>> orders, List<Object> after) {
+    BooleanBuilder seek = new BooleanBuilder();
+    BooleanBuilder equalPrefix = new BooleanBuilder();
+
+    for (int i = 0; i < orders.size(); i++) {
+      OrderSpecifier<?> order = orders.get(i);
+      ComparableExpression<Comparable> target =
+          Expressions.asComparable((Expression<Comparable>) order.getTarget());
+      Comparable value = (Comparable) after.get(i);
+
+      BooleanExpression beyond;
+      if (value == null) {
+        beyond = target.isNotNull();
+      } else {
+        beyond = order.isAscending() ? target.gt(value) : target.lt(value);
+      }
+
+      seek.or(new BooleanBuilder().and(equalPrefix.getValue()).and(beyond));
+      equalPrefix.and(value == null ? target.isNull() : target.eq(value));
+    }
+
+    return seek;
+  }
+
+  /**
+   * Fill the expanded associations of already loaded root entities with one batched
+   * {@code IN (parentIds)} query per association and level. Each query re-selects the parents with
+   * a fetch join on a single association, so that Hibernate initializes it on the managed entities
+   * of the persistence context. The number of queries scales with the expand depth rather than
+   * with the number of rows.
+   *
+   * @param entityManager the root entities are managed by
+   * @param rootEntity    DO root entity
+   * @param roots         root entities to load the expands for
+   * @param queryParams   filters and expands from the request
+   */
+  default <T> void loadExpands(
+      EntityManager entityManager,
+      EntityPathBase<T> rootEntity,
+      List<T> roots,
+      QueryParams queryParams) {
+
+    batchLoad(entityManager, rootEntity.getType(), roots,
+        expandChains(rootEntity.getType(), queryParams.queryFilter(), queryParams.expandList()));
+  }
+
+  /**
+   * Translate the expands of the request into a dynamic entity graph. Nested expands, e.g.
+   * projects and then client, become subgraphs of the association they start from. The graph is
+   * meant to be applied as a {@code jakarta.persistence.fetchgraph} hint on a query for the root
+   * entity.
+   *
+   * @param entityManager to create the graph with
+   * @param rootType      class of the DO root entity
+   * @param queryParams   filters and expands from the request
+   * @return the entity graph with an attribute node for each expand
+   */
+  default <T> EntityGraph<T> expandGraph(
+      EntityManager entityManager,
+      Class<T> rootType,
+      QueryParams queryParams) {
+
+    EntityGraph<T> graph = entityManager.createEntityGraph(rootType);
+
+    Map<List<String>, Subgraph<Object>> subgraphs = new HashMap<>();
+
+    for (List<String> chain : expandChains(rootType, queryParams.queryFilter(),
+        queryParams.expandList())) {
+      for (int i = 0; i < chain.size(); i++) {
+        List<String> prefix = chain.subList(0, i + 1);
+
+        if (subgraphs.containsKey(prefix)) {
+          continue;
+        }
+
+        String attribute = entityPath(new Join(chain.get(i)));
+
+        Subgraph<Object> subgraph;
+
+        if (i == 0) {
+          subgraph = graph.addSubgraph(attribute);
+        } else {
+          subgraph = subgraphs.get(chain.subList(0, i)).addSubgraph(attribute);
+        }
+        subgraphs.put(prefix, subgraph);
+      }
+    }
+
+    return graph;
+  }
+
+  private <P> void batchLoad(
+      EntityManager entityManager,
+      Class<P> parentType,
+      Collection<?> parents,
+      Set<List<String>> chains) {
+
+    if (parents.isEmpty() || chains.isEmpty()) {
+      return;
+    }
+
+    // group the chains by their first association, the rest is loaded at the next level
+    Map<String, Set<List<String>>> nextLevel = new LinkedHashMap<>();
+
+    for (List<String> chain : chains) {
+      Set<List<String>> tails = nextLevel.computeIfAbsent(chain.get(0), k -> new LinkedHashSet<>());
+
+      if (chain.size() > 1) {
+        tails.add(chain.subList(1, chain.size()));
+      }
+    }
+
+    PersistenceUnitUtil persistenceUnitUtil =
+        entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+
+    List<Object> parentIds = parents.stream()
+        .map(persistenceUnitUtil::getIdentifier)
+        .distinct()
+        .toList();
+
+    PathBuilder<P> parentPath = new PathBuilder<>(parentType, "parent");
+    PathBuilder<Object> parentIdPath = parentPath.get(idAttribute(entityManager, parentType));
+
+    for (Map.Entry<String, Set<List<String>>> entry : nextLevel.entrySet()) {
+
+      String association = entityPath(new Join(entry.getKey()));
+
+      List<P> loaded = new JPAQueryFactory(entityManager).selectFrom(parentPath)
+          .leftJoin(parentPath.getSet(association, Object.class)).fetchJoin()
+          .where(parentIdPath.in(parentIds))
+          .fetch();
+
+      List<Object> children = new ArrayList<>();
+
+      for (P parent : loaded) {
+        Object value = associationValue(Hibernate.unproxy(parent), association);
+
+        if (value instanceof Collection<?> collection) {
+          children.addAll(collection);
+        } else if (value != null) {
+          children.add(value);
+        }
+      }
+
+      batchLoad(entityManager, doClass(entry.getKey()), children, entry.getValue());
+    }
+  }
+
+  private Object associationValue(Object entity, String association) {
+    Class<?> currentType = entity.getClass();
+
+    while (currentType != null) {
+      try {
+        Field field = currentType.getDeclaredField(association);
+        field.setAccessible(true); // NOSONAR
+        return field.get(entity);
+      } catch (NoSuchFieldException e) {
+        currentType = currentType.getSuperclass();
+      } catch (IllegalAccessException e) {
+        throw new QueryFilterException(e.getMessage(), e);
+      }
+    }
+
+    throw new QueryFilterException(
+        String.format("Field %s not found in %s", association, entity.getClass().getName()));
+  }
+
+  /**
+   * A filter on a string attribute of cached reference data, e.g. the department name, is resolved
+   * in memory to the identifiers of the matching rows and rewritten as a filter on the identifier,
+   * which then does not need the join anymore. Only equality and in conditions on a to-one
+   * association are resolved, and when no row matches the filter is left as it is.
+   *
+   * @param rootType    class of the DO root entity
+   * @param queryFilter filter from the request
+   * @return the filter on the identifiers of the matching rows if resolved, the filter itself
+   * otherwise
+   */
+  private QueryFilter withReferenceDataIds(Class<?> rootType, QueryFilter queryFilter) {
+    ReferenceDataCache cache = referenceDataCache();
+    RelationRegistry registry = relationRegistry();
+    List<Join> joins = queryFilter.joins();
+
+    if (cache == null || registry == null || joins.isEmpty()) {
+      return queryFilter;
+    }
+
+    String lastJoin = joins.get(joins.size() - 1).entityToJoin();
+    String association = isRoot(lastJoin) ? null : entityFrom(lastJoin);
+
+    if (association == null || !cache.isCached(doClass(lastJoin))) {
+      return queryFilter;
+    }
+
+    Optional<Relation> relation = registry.relation(ownerType(rootType, joins), association)
+        .filter(Relation::isToOne);
+
+    String[] parts = parseConditionAndValue(queryFilter.value().toString());
+    ConditionType condition =
+        parts.length == 2 ? ConditionType.from(parts[1].toLowerCase()) : ConditionType.EQ;
+
+    if (relation.isEmpty()
+        || resolveFieldType(relation.get().targetClass(), queryFilter.fieldName()) != String.class
+        || (condition != ConditionType.EQ && condition != ConditionType.IN)) {
+      return queryFilter;
+    }
+
+    List<String> values =
+        condition == ConditionType.EQ ? List.of(cleanString(parts[0])) : inSplitValues(parts[0]);
+
+    return cache.idsFor(relation.get().targetClass(), queryFilter.fieldName(), values)
+        .filter(ids -> !ids.isEmpty())
+        .map(ids -> new QueryFilter(
+            relation.get().targetIdAttribute(),
+            joins,
+            ConditionType.IN.operator + OPERATOR_SPLITTER + ids.stream()
+                .map(id -> id.toString().replace(",", ESCAPE + ","))
+                .collect(Collectors.joining(","))))
+        .orElse(queryFilter);
+  }
+
+  /**
+   * A filter on the identifier of a to-one association does not need to join it, since the value
+   * already lives in the foreign key column of the owning side. Such a filter is rewritten on the
+   * association of the owning entity, e.g. department.id on the employee, and the join is left to
+   * whatever else needs it, such as an expand.
+   *
+   * @param rootType    class of the DO root entity
+   * @param queryFilter filter from the request
+   * @return the filter without the last join if it only compares its identifier, the filter
+   * itself otherwise
+   */
+  private QueryFilter withoutForeignKeyJoin(Class<?> rootType, QueryFilter queryFilter) {
+    RelationRegistry registry = relationRegistry();
+    List<Join> joins = queryFilter.joins();
+
+    if (registry == null || joins.isEmpty()) {
+      return queryFilter;
+    }
+
+    String lastJoin = joins.get(joins.size() - 1).entityToJoin();
+    String association = isRoot(lastJoin) ? null : entityFrom(lastJoin);
+
+    if (association == null) {
+      return queryFilter;
+    }
+
+    List<Join> ownerJoins = new LinkedList<>(joins.subList(0, joins.size() - 1));
+
+    return registry.relation(ownerType(rootType, joins), association)
+        .filter(Relation::isToOne)
+        .filter(relation -> queryFilter.fieldName().equals(relation.targetIdAttribute()))
+        .map(relation -> new QueryFilter(association + "." + queryFilter.fieldName(), ownerJoins,
+            queryFilter.value()))
+        .orElse(queryFilter);
+  }
+
+  /**
+   * @return the class of the entity owning the last join, the root entity for a single join
+   */
+  private Class<?> ownerType(Class<?> rootType, List<Join> joins) {
+    return joinedType(rootType, joins.subList(0, joins.size() - 1));
+  }
+
+  /**
+   * Find the joins that can be promoted from left to inner joins. A left join only differs from an
+   * inner one for the rows without a match, which a predicate on the joined entity already
+   * excludes: every condition is a comparison, and a comparison with a NULL operand evaluates to
+   * UNKNOWN, also when negated. Therefore, a join is promoted as soon as a filter goes through it.
+   * The default joins are kept as left joins, since the default predicate might rely on their
+   * nulls.
+   *
+   * @param queryFilters list of QueryFilter from the request
+   * @return the joins to apply as inner joins
+   */
+  private Set<String> nullRejectedJoins(List<QueryFilter> queryFilters) {
+    Set<String> nullRejected = queryFilters.stream()
+        .flatMap(queryFilter -> queryFilter.joins().stream())
+        .map(Join::entityToJoin)
+        .collect(Collectors.toCollection(HashSet::new));
+
+    nullRejected.removeAll(defaultJoins());
+
+    return nullRejected;
+  }
+
   /**
    * Create a path given the root entity and the joins. Joins are built by getting the DO entity
    * class from the input join string
@@ -140,10 +1018,12 @@ public interface QueryFilterService {
    * @param query      JPA query from root
    * @param rootEntity is the root entity path from DO
    * @param joins      set of join strings from the request
+   * @param innerJoins joins to apply as inner joins instead of left joins
    * @return the path for the current entity from the root to the joins if any
    */
   private <T> PathBuilder<?> pathBuilder(
-      JPAQuery<?> query, EntityPathBase<T> rootEntity, List<Join> joins, Expression<?> projection) {
+      JPAQuery<?> query, EntityPathBase<T> rootEntity, List<Join> joins, Expression<?> projection,
+      Set<String> innerJoins) {
 
     PathBuilder<?> path = new PathBuilder<>(rootEntity.getType(), rootEntity.getMetadata());
 
@@ -171,11 +1051,12 @@ public interface QueryFilterService {
 
         PathBuilder<Object> target = path.get(entityPath, Object.class);
 
-        if (projection.toString().contains("count")) {
-          query.leftJoin(target, aliasPath);
-        } else {
-          query.leftJoin(target, aliasPath)
-              .fetchJoin();
+        JPAQuery<?> joinedQuery = innerJoins.contains(join.entityToJoin())
+            ? query.innerJoin(target, aliasPath)
+            : query.leftJoin(target, aliasPath);
+
+        if (fetchJoins(projection)) {
+          joinedQuery.fetchJoin();
         }
       }
       path = aliasPath;
@@ -204,28 +1085,290 @@ public interface QueryFilterService {
     return doClass;
   }
 
+  /**
+   * Left join the chain of the expand from the root entity. The hops already joined, e.g. projects
+   * by a filter when expanding their client, are reused rather than joined again under the same
+   * alias.
+   */
   private <T> void applyJoinFromExpand(
       JPAQuery<?> query, EntityPathBase<T> rootEntity, String expand, Expression<?> projection) {
-    List<String> expandsFrom = expandsFrom(expand);
+    List<String> expandsFrom = expandsFrom(rootEntity.getType(), expand);
 
     PathBuilder<?> path = new PathBuilder<>(rootEntity.getType(), rootEntity.getMetadata());
 
     for (String exp : expandsFrom) {
+      String alias = alias(exp) == null ? exp : alias(exp);
 
-      Class<?> doClass = doClass(exp);
+      PathBuilder<Object> aliasPath = new PathBuilder<>(doClass(exp), alias);
 
-      PathBuilder<Object> aliasPath = new PathBuilder<>(doClass, exp);
+      if (!isJoined(query, alias)) {
+        JPAQuery<?> joinedQuery = query.leftJoin(path.getSet(entityFrom(exp), Object.class),
+            aliasPath);
 
-      if (projection.toString().contains("count")) {
-        query.leftJoin(path.getSet(entityFrom(exp), Object.class), aliasPath);
-      } else {
-        query.leftJoin(path.getSet(entityFrom(exp), Object.class), aliasPath)
-            .fetchJoin();
+        if (fetchJoins(projection)) {
+          joinedQuery.fetchJoin();
+        }
       }
       path = aliasPath;
     }
   }
 
+  /**
+   * @return true if the query already joins an entity under the alias
+   */
+  private boolean isJoined(JPAQuery<?> query, String alias) {
+    return query.getMetadata().getJoins().stream()
+        .map(JoinExpression::getTarget)
+        .anyMatch(target -> target instanceof Operation<?> operation
+            && operation.getOperator() == Ops.ALIAS
+            && operation.getArg(1) instanceof Path<?> aliasPath
+            && aliasPath.getMetadata().getName().equals(alias));
+  }
+
+  /**
+   * The window count is only exact when every join of the query is a to-one relation, so that the
+   * root rows are not multiplied before the distinct. Every hop counts, e.g. a default join of the
+   * client goes through the to-many projects.
+   */
+  private boolean supportsWindowCount(EntityManager entityManager, Class<?> rootType,
+      List<QueryFilter> queryFilters) {
+
+    boolean windowFunctions = entityManager.getEntityManagerFactory()
+        .unwrap(SessionFactoryImplementor.class)
+        .getJdbcServices()
+        .getDialect()
+        .supportsWindowFunctions();
+
+    return windowFunctions
+        && queryFilters.stream()
+        .noneMatch(queryFilter -> throughToMany(rootType, queryFilter.joins()))
+        && defaultJoins().stream().noneMatch(defaultJoin -> throughToMany(rootType,
+            expandsFrom(rootType, defaultJoin).stream().map(Join::new).toList()));
+  }
+
+  /**
+   * Fetch joins are only valid when the owner of the association is selected, therefore we fetch
+   * only when the query projects an entity, never for count or id queries
+   */
+  private boolean fetchJoins(Expression<?> projection) {
+    return expandStrategy() == ExpandStrategy.FETCH_JOIN && projection instanceof EntityPath<?>;
+  }
+
+  /**
+   * Collect the join chains to expand for the given filters and expands, in the same way the
+   * predicate does. The joins of a filter are a chain themselves, while the remaining expands are
+   * resolved through {@link #expandsFrom(Class, String)}
+   *
+   * @param rootType     class of the DO root entity
+   * @param queryFilters list of QueryFilter from the request
+   * @param expandList   list of mandatory entity to expand. It might contain already joined tables
+   * @return the distinct join chains, each one starting from the root entity
+   */
+  private Set<List<String>> expandChains(Class<?> rootType, List<QueryFilter> queryFilters,
+      List<String> expandList) {
+
+    Set<List<String>> chains = new LinkedHashSet<>();
+    Set<String> joinedByFilters = new HashSet<>();
+
+    for (QueryFilter queryFilter : queryFilters) {
+      List<String> chain = queryFilter.joins().stream()
+          .map(Join::entityToJoin)
+          .filter(entityToJoin -> !isRoot(entityToJoin))
+          .toList();
+
+      joinedByFilters.addAll(chain);
+
+      if (!chain.isEmpty()) {
+        chains.add(chain);
+      }
+    }
+
+    Stream.concat(expandList.stream(), defaultJoins().stream())
+        .filter(expand -> !joinedByFilters.contains(expand))
+        .map(expand -> expandsFrom(rootType, expand))
+        .forEach(chains::add);
+
+    return chains;
+  }
+
+  /**
+   * Left join fetch the given chains from the root entity. Chains sharing a prefix reuse the same
+   * join, so that each alias is joined only once
+   */
+  private <T> void fetchJoinChains(
+      JPAQuery<?> query, EntityPathBase<T> rootEntity, Set<List<String>> chains) {
+
+    Set<String> joinedAliases = new HashSet<>();
+
+    for (List<String> chain : chains) {
+      PathBuilder<?> path = new PathBuilder<>(rootEntity.getType(), rootEntity.getMetadata());
+
+      for (String exp : chain) {
+        String alias = alias(exp) == null ? exp : alias(exp);
+
+        PathBuilder<Object> aliasPath = new PathBuilder<>(doClass(exp), alias);
+
+        if (joinedAliases.add(alias)) {
+          query.leftJoin(path.getSet(entityPath(new Join(exp)), Object.class), aliasPath)
+              .fetchJoin();
+        }
+        path = aliasPath;
+      }
+    }
+  }
+
+  /**
+   * Translate the sort of the request into orders, resolving the properties like the filters:
+   * {@code department.name} joins the department, with its alias, unless the filters already did,
+   * and orders by its name. A single relation is resolved from the root entity through the
+   * registry, e.g. {@code client.name} from an employee joins its projects and their client.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private <T> List<OrderSpecifier<?>> orderSpecifiers(JPAQuery<?> query,
+      EntityPathBase<T> rootEntity, PathBuilder<Object> idPath, Sort sort, boolean aggregated) {
+
+    Expression<?> projection = query.getMetadata().getProjection();
+    String idAttribute = idPath.getMetadata().getName();
+    List<OrderSpecifier<?>> orders = new ArrayList<>();
+
+    for (Sort.Order order : sort) {
+      FieldPath sortPath = sortPath(rootEntity.getType(), order.getProperty());
+
+      ComparableExpression<Comparable> target =
+          pathBuilder(query, rootEntity, sortPath.joins(), projection, Set.of())
+              .getComparable(sortPath.fieldName(), Comparable.class);
+
+      if (aggregated) {
+        target = order.isAscending() ? target.min() : target.max();
+      }
+
+      orders.add(new OrderSpecifier<>(order.isAscending() ? Order.ASC : Order.DESC, target));
+    }
+
+    if (sort.getOrderFor(idAttribute) == null) {
+      orders.add(new OrderSpecifier<>(Order.ASC,
+          new PathBuilder<>(rootEntity.getType(), rootEntity.getMetadata())
+              .getComparable(idAttribute, Comparable.class)));
+    }
+
+    return orders;
+  }
+
+  private boolean sortsThroughToMany(Class<?> rootType, Sort sort) {
+    return sort.stream()
+        .anyMatch(order -> throughToMany(rootType,
+            sortPath(rootType, order.getProperty()).joins()));
+  }
+
+  /**
+   * Whether the joins go through a to-many relation, or one unknown to the registry. Each relation
+   * is resolved on the entity reached by the previous joins, since the same name may be a to-one
+   * relation of one entity and a to-many relation of another.
+   *
+   * @param rootType class of the DO root entity, null if unknown
+   */
+  private boolean throughToMany(Class<?> rootType, List<Join> joins) {
+    Class<?> sourceType = rootType;
+
+    for (Join join : joins) {
+      if (isRoot(join.entityToJoin())) {
+        continue;
+      }
+
+      Optional<Relation> relation = registeredRelation(sourceType, join.entityToJoin());
+
+      if (relation.map(registered -> !registered.isToOne()).orElse(true)) {
+        return true;
+      }
+      sourceType = relation.get().targetClass();
+    }
+
+    return false;
+  }
+
+  /**
+   * @return the entity reached by the joins from the root entity
+   */
+  private Class<?> joinedType(Class<?> rootType, List<Join> joins) {
+    Class<?> joinedType = rootType;
+
+    for (Join join : joins) {
+      if (!isRoot(join.entityToJoin())) {
+        Class<?> sourceType = joinedType;
+        joinedType = registeredRelation(sourceType, join.entityToJoin())
+            .<Class<?>>map(Relation::targetClass)
+            .orElseGet(() -> doClass(join.entityToJoin()));
+      }
+    }
+
+    return joinedType;
+  }
+
+  private FieldPath sortPath(Class<?> rootType, String property) {
+    Set<String> sortableFields = sortableFields();
+
+    if (sortableFields.isEmpty() ? property.contains(".") : !sortableFields.contains(property)) {
+      throw new QueryFilterException(String.format("Sorting on %s is not allowed", property));
+    }
+
+    return FieldPaths.resolve(getClass(), rootType, property,
+        key -> resolveFieldPath(rootType, key));
+  }
+
+  /**
+   * A selected field must be allowed, hold a value rather than an entity, and be reached through
+   * to-one relations only, so that the row of a root entity stays a single row
+   */
+  private FieldPath selectedFieldPath(EntityManager entityManager, Class<?> rootType,
+      String property) {
+
+    Set<String> selectableFields = selectableFields();
+
+    if (selectableFields.isEmpty() ? property.contains(".")
+        : !selectableFields.contains(property)) {
+      throw new QueryFilterException(String.format("Selecting %s is not allowed", property));
+    }
+
+    FieldPath fieldPath = FieldPaths.resolve(getClass(), rootType, property,
+        key -> resolveFieldPath(rootType, key));
+
+    Class<?> fieldType = resolveFieldType(joinedType(rootType, fieldPath.joins()),
+        fieldPath.fieldName());
+    boolean entity = entityManager.getMetamodel().getEntities().stream()
+        .anyMatch(entityType -> entityType.getJavaType().equals(fieldType));
+
+    if (throughToMany(rootType, fieldPath.joins()) || entity) {
+      throw new QueryFilterException(String.format(
+          "Field %s is not a value of the root entity or of a to-one relation", property));
+    }
+
+    return fieldPath;
+  }
+
+  private FieldPath resolveFieldPath(Class<?> rootType, String property) {
+    int lastDot = property.lastIndexOf('.');
+    String fieldName = property.substring(lastDot + 1);
+
+    List<String> relations = List.of();
+    if (lastDot > 0) {
+      String[] segments = property.substring(0, lastDot).split("\\.");
+      relations = segments.length == 1 ? expandsFrom(rootType, segments[0]) : List.of(segments);
+    }
+
+    List<Join> joins = relations.stream().map(Join::new).toList();
+
+    // fail fast on unknown fields
+    resolveFieldType(joinedType(rootType, joins), fieldName);
+
+    return new FieldPath(joins, fieldName);
+  }
+
+  private String idAttribute(EntityManager entityManager, Class<?> entityClass) {
+    EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+
+    return entityType.getId(entityType.getIdType().getJavaType()).getName();
+  }
+
   /**
    * Builds a Predicate based on the given path, field path, and condition specified in the value.
    * Supports conditions such as "eq", "like", "gt", "goe", "lt", "loe", in", "between", etc
@@ -938,11 +2081,54 @@ public interface QueryFilterService {
     return currentType;
   }
 
+  /**
+   * Predicate added to every query of the service, e.g. restricting the rows to the tenant of the
+   * caller. When it depends on the caller, {@link #cacheScope()} must tell them apart.
+   *
+   * @return the predicate on the root entity, none by default
+   */
   default <T> Predicate defaultPredicate(JPAQuery<?> query, EntityPathBase<T> rootEntity) {
     return null;
   }
 
-  String entityFrom(String expand);
+  /**
+   * Scope of the {@link #defaultPredicate} for the current caller, e.g. its tenant or user id.
+   * Identical requests share their results, in flight or cached, within the same scope only, so
+   * that a caller never gets the rows restricted for another one.
+   *
+   * @return the scope of the current caller, the same for all callers by default
+   */
+  default String cacheScope() {
+    return "";
+  }
+
+  /**
+   * Registry of the relations of the entity model. When present, the entity path, the DO class and
+   * the multi-hop expands are resolved from it, and overriding the methods below is optional
+   *
+   * @return the relation registry, none by default
+   */
+  default RelationRegistry relationRegistry() {
+    return null;
+  }
+
+  /**
+   * Cache of the reference data entities. When present, filters on their string attributes are
+   * resolved to identifiers in memory and compared on the foreign key, without joining them
+   *
+   * @return the reference data cache, none by default
+   */
+  default ReferenceDataCache referenceDataCache() {
+    return null;
+  }
+
+  /**
+   * @param expand relation from the request
+   * @return the name of the association to join for the relation
+   */
+  default String entityFrom(String expand) {
+    return registeredRelation(expand).map(Relation::name).orElse(null);
+  }
 
   /**
    * If we use only the expand parameter in a request, we might need to use multiple joins in an n-m
@@ -956,12 +2142,111 @@ public interface QueryFilterService {
     return List.of(expand);
   }
 
-  Class<?> doFrom(String relation);
+  /**
+   * Multi-hop version of {@link #expandsFrom(String)}, resolving the path from the root entity
+   * through the relation registry, e.g. client from an employee is joined through projects
+   *
+   * @param rootType class of the DO root entity
+   * @param expand   string from the request
+   * @return a list of tables to join from the root entity
+   */
+  default List<String> expandsFrom(Class<?> rootType, String expand) {
+    return Optional.ofNullable(relationRegistry())
+        .flatMap(registry -> registry.path(rootType, expand))
+        .map(path -> path.stream().map(Relation::name).toList())
+        .orElseGet(() -> expandsFrom(expand));
+  }
+
+  /**
+   * @param relation from the request
+   * @return the DO class of the relation
+   */
+  default Class<?> doFrom(String relation) {
+    return registeredRelation(relation).map(Relation::targetClass).orElse(null);
+  }
+
+  private Optional<Relation> registeredRelation(String name) {
+    return Optional.ofNullable(relationRegistry()).flatMap(registry -> registry.relation(name));
+  }
+
+  /**
+   * Relation of the join declared by the source entity, falling back to the relation of that
+   * name across the model when the source entity is unknown or does not declare it
+   *
+   * @param sourceType   entity reached by the previous joins, null if unknown
+   * @param entityToJoin join from the request
+   */
+  private Optional<Relation> registeredRelation(Class<?> sourceType, String entityToJoin) {
+    RelationRegistry registry = relationRegistry();
+
+    if (registry == null) {
+      return Optional.empty();
+    }
+
+    String association = Optional.ofNullable(entityFrom(entityToJoin)).orElse(entityToJoin);
+
+    return Optional.ofNullable(sourceType)
+        .flatMap(source -> registry.relation(source, association))
+        .or(() -> registry.relation(entityToJoin));
+  }
+
+  /**
+   * Sort properties accepted from the request, e.g. {@code name} or {@code department.name}.
+   * Without an allow-list, only the attributes of the root entity can be sorted on
+   *
+   * @return the sortable properties, empty by default
+   */
+  default Set<String> sortableFields() {
+    return Set.of();
+  }
+
+  /**
+   * Fields that can be selected in a sparse fieldset, e.g. {@code name} or
+   * {@code department.name}. Without an allow-list, only the attributes of the root entity can be
+   * selected
+   *
+   * @return the selectable properties, empty by default
+   */
+  default Set<String> selectableFields() {
+    return Set.of();
+  }
+
+  /**
+   * Number of rows the list queries fetch from the database at a time. Queries returning a known
+   * number of rows, such as the ids of a page, fetch only that many.
+   *
+   * @return the fetch size of the list queries, 1000 by default
+   */
+  default int fetchSize() {
+    return 1000;
+  }
 
   default List<String> defaultJoins() {
     return List.of();
   }
 
+  /**
+   * Whether joins whose filters are all null-rejecting are promoted to inner joins, giving the
+   * database optimizer more join orders to choose from
+   *
+   * @return true to promote joins, the default
+   */
+  default boolean promoteInnerJoins() {
+    return true;
+  }
+
+  /**
+   * Strategy to load the expands with. With any strategy other than fetch join, filter joins are
+   * not fetched and expands are not joined in the predicate, they are loaded by
+   * {@link #fetchPage(EntityManager, EntityPathBase, QueryParams)} instead, or by applying
+   * {@link #loadExpands} or {@link #expandGraph} to a query built with the predicate
+   *
+   * @return the strategy to load the expands with, fetch joins by default
+   */
+  default ExpandStrategy expandStrategy() {
+    return ExpandStrategy.FETCH_JOIN;
+  }
+
   /**
    * Alias for a table in order to reuse the same table multiple times
    *
@@ -1,32 +1,41 @@
 package org.example.query.service;
 
-import org.example.model.Client;
-import org.example.model.Department;
-import org.example.model.ProjectToDo;
-import org.example.model.QEmployee;
-import org.example.model.QProjectToDo;
+import org.example.query.cache.ReferenceDataCache;
+import org.example.query.relation.RelationRegistry;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-
-import static org.example.model.Employee.CLIENT;
-import static org.example.model.Employee.DEPARTMENT;
-import static org.example.model.Employee.PROJECTS;
+import java.util.Set;
 
 @Service("employeeFilterService")
 public class QueryFilterServiceImpl implements QueryFilterService {
 
-    Map<String, Class<?>> entities = Map.of(PROJECTS, ProjectToDo.class, CLIENT, Client.class, DEPARTMENT, Department.class);
-    Map<String, String> expands = Map.of(PROJECTS, QEmployee.employee.projects.getMetadata().getName()
-            , CLIENT, QProjectToDo.projectToDo.client.getMetadata().getName(), DEPARTMENT, QEmployee.employee.department.getMetadata().getName());
+    private final RelationRegistry relationRegistry;
+
+    private final ReferenceDataCache referenceDataCache;
+
+    public QueryFilterServiceImpl(RelationRegistry relationRegistry,
+                                  ReferenceDataCache referenceDataCache) {
+        this.relationRegistry = relationRegistry;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @Override
+    public RelationRegistry relationRegistry() {
+        return relationRegistry;
+    }
+
+    @Override
+    public ReferenceDataCache referenceDataCache() {
+        return referenceDataCache;
+    }
 
     @Override
-    public String entityFrom(String expand) {
-        return expands.get(expand);
+    public Set<String> sortableFields() {
+        return Set.of("id", "name", "department.name", "projects.name", "client.name");
     }
 
     @Override
-    public Class<?> doFrom(String relation) {
-        return entities.get(relation);
+    public Set<String> selectableFields() {
+        return Set.of("id", "name", "department.id", "department.name");
     }
 }
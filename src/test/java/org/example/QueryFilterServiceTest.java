@@ -163,7 +163,7 @@ class QueryFilterServiceTest {
 
         JPAQuery<?> query = mock(JPAQuery.class);
 
-        when(mockQuery.leftJoin(any(EntityPath.class), any(Path.class))).thenReturn(query);
+        when(mockQuery.innerJoin(any(EntityPath.class), any(Path.class))).thenReturn(query);
 
         Predicate result = queryFilterService.predicateFrom(
                 List.of(new QueryFilter("id", List.of(new Join(ONE_TO_MANY_DO)), "!eq:value")),
@@ -174,7 +174,36 @@ class QueryFilterServiceTest {
         assertInstanceOf(BooleanBuilder.class, result,
                 "Result should be an instance of BooleanBuilder");
 
+        verify(mockQuery, times(1)).innerJoin(any(EntityPath.class), any(Path.class));
+        verify(query, times(1)).fetchJoin();
+    }
+
+    @Test
+    void queryWithJoinAndPromotionDisabled() {
+
+        queryFilterService = new QueryFilterServiceImpl() {
+            @Override
+            public boolean promoteInnerJoins() {
+                return false;
+            }
+        };
+
+        mockRootPath();
+
+        JPAQuery<?> query = mock(JPAQuery.class);
+
+        when(mockQuery.leftJoin(any(EntityPath.class), any(Path.class))).thenReturn(query);
+
+        Predicate result = queryFilterService.predicateFrom(
+                List.of(new QueryFilter("id", List.of(new Join(ONE_TO_MANY_DO)), "eq:value")),
+                mockRootEntity, mockQuery,
+                List.of());
+
+        assertInstanceOf(BooleanBuilder.class, result,
+                "Result should be an instance of BooleanBuilder");
+
         verify(mockQuery, times(1)).leftJoin(any(EntityPath.class), any(Path.class));
+        verify(mockQuery, times(0)).innerJoin(any(EntityPath.class), any(Path.class));
         verify(query, times(1)).fetchJoin();
     }
 
@@ -185,7 +214,7 @@ class QueryFilterServiceTest {
 
         JPAQuery<?> query = mock(JPAQuery.class);
 
-        when(mockQuery.leftJoin(any(EntityPath.class), any(Path.class))).thenReturn(query);
+        when(mockQuery.innerJoin(any(EntityPath.class), any(Path.class))).thenReturn(query);
 
         Predicate result = queryFilterService.predicateFrom(
                 List.of(new QueryFilter("id", List.of(new Join(ONE_TO_MANY_DO)), "!eq:value")),
@@ -196,7 +225,7 @@ class QueryFilterServiceTest {
         assertInstanceOf(BooleanBuilder.class, result,
                 "Result should be an instance of BooleanBuilder");
 
-        verify(mockQuery, times(1)).leftJoin(any(EntityPath.class), any(Path.class));
+        verify(mockQuery, times(1)).innerJoin(any(EntityPath.class), any(Path.class));
         verify(query, times(0)).fetchJoin();
     }
 
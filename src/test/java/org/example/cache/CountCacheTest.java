@@ -0,0 +1,118 @@
+package org.example.cache;
+
+import org.example.model.Department;
+import org.example.model.Employee;
+import org.example.query.QueryParams;
+import org.example.query.cache.CountCache;
+import org.example.query.cache.EntityChangeEvents;
+import org.example.query.cache.QueryCacheProperties;
+import org.example.query.cache.QueryKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CountCacheTest {
+
+    private static final Set<Class<?>> ENTITY_TYPES = Set.of(Employee.class, Department.class);
+
+    @Mock
+    private EntityChangeEvents entityChangeEvents;
+
+    private final List<Runnable> refreshes = new ArrayList<>();
+
+    private final AtomicLong total = new AtomicLong(5);
+
+    @Test
+    void shouldShareTotalAcrossPagesAndSorts() {
+        CountCache cache = cache(Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+        cache.put(key(PageRequest.of(0, 10)), ENTITY_TYPES, 3, cache.invalidations());
+
+        assertEquals(OptionalLong.of(3), get(cache, key(PageRequest.of(4, 10, Sort.by("name")))));
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void shouldServeStaleTotalWhileRefreshing() {
+        CountCache cache = cache(Duration.ZERO, Duration.ofMinutes(10));
+        cache.put(key(null), ENTITY_TYPES, 3, cache.invalidations());
+
+        assertEquals(OptionalLong.of(3), get(cache, key(null)));
+        assertEquals(OptionalLong.of(3), get(cache, key(null)));
+        assertEquals(1, refreshes.size());
+
+        refreshes.remove(0).run();
+
+        assertEquals(OptionalLong.of(5), get(cache, key(null)));
+    }
+
+    @Test
+    void shouldRefreshOnChangeOfTouchedEntityType() {
+        CountCache cache = cache(Duration.ofMinutes(1), Duration.ofMinutes(10));
+        Consumer<Class<?>> changes = changes();
+        cache.put(key(null), ENTITY_TYPES, 3, cache.invalidations());
+
+        changes.accept(Department.class);
+
+        assertEquals(OptionalLong.of(3), get(cache, key(null)));
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    void shouldRefreshTotalCountedDuringChange() {
+        CountCache cache = cache(Duration.ofMinutes(1), Duration.ofMinutes(10));
+        Consumer<Class<?>> changes = changes();
+        long invalidationsBefore = cache.invalidations();
+
+        changes.accept(Employee.class);
+        cache.put(key(null), ENTITY_TYPES, 3, invalidationsBefore);
+
+        assertEquals(OptionalLong.of(3), get(cache, key(null)));
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    void shouldNotServeExpiredTotal() {
+        CountCache cache = cache(Duration.ZERO, Duration.ZERO);
+        cache.put(key(null), ENTITY_TYPES, 3, cache.invalidations());
+
+        assertEquals(OptionalLong.empty(), get(cache, key(null)));
+    }
+
+    private CountCache cache(Duration staleAfter, Duration expireAfter) {
+        return new CountCache(new QueryCacheProperties(false, 0, 0, Duration.ZERO, true, 10, staleAfter,
+                expireAfter, Duration.ofMinutes(5)), entityChangeEvents);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<Class<?>> changes() {
+        ArgumentCaptor<Consumer<Class<?>>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(entityChangeEvents).subscribe(subscriber.capture());
+        return subscriber.getValue();
+    }
+
+    private OptionalLong get(CountCache cache, QueryKey key) {
+        return cache.get(key, ENTITY_TYPES, total::get, refreshes::add);
+    }
+
+    private QueryKey key(PageRequest pageRequest) {
+        return QueryKey.ofCount(Object.class, "", Employee.class, new QueryParams(List.of(), pageRequest, null));
+    }
+}
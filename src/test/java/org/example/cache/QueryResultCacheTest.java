@@ -0,0 +1,139 @@
+package org.example.cache;
+
+import org.example.model.Client;
+import org.example.model.Department;
+import org.example.model.Employee;
+import org.example.query.Join;
+import org.example.query.QueryFilter;
+import org.example.query.QueryParams;
+import org.example.query.cache.EntityChangeEvents;
+import org.example.query.cache.QueryCacheProperties;
+import org.example.query.cache.QueryKey;
+import org.example.query.cache.QueryResultCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class QueryResultCacheTest {
+
+    @Mock
+    private EntityChangeEvents entityChangeEvents;
+
+    private QueryResultCache cache;
+
+    private Consumer<Class<?>> changes;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        cache = new QueryResultCache(new QueryCacheProperties(true, 2, 10, Duration.ofMinutes(1), false,
+                0, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(5)), entityChangeEvents);
+
+        ArgumentCaptor<Consumer<Class<?>>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(entityChangeEvents).subscribe(subscriber.capture());
+        changes = subscriber.getValue();
+    }
+
+    @Test
+    void shouldShareKeyAcrossFilterOrderAndDuplicateValues() {
+        QueryFilter department = new QueryFilter("name", List.of(new Join("department")), "in:Sales,IT,Sales");
+        QueryFilter name = new QueryFilter("name", List.of(), "John");
+
+        QueryKey key = QueryKey.of(Object.class, "", Employee.class,
+                new QueryParams(List.of(department, name), PageRequest.of(0, 10, Sort.by("name")), null), "");
+        QueryKey same = QueryKey.of(Object.class, "", Employee.class,
+                new QueryParams(List.of(name, new QueryFilter("name", List.of(new Join("department")), "in:IT,Sales")),
+                        PageRequest.of(0, 10, Sort.by("name")), null), "");
+        QueryKey nextPage = QueryKey.of(Object.class, "", Employee.class,
+                new QueryParams(List.of(department, name), PageRequest.of(1, 10, Sort.by("name")), null), "");
+
+        assertEquals(key, same);
+        assertNotEquals(key, nextPage);
+    }
+
+    @Test
+    void shouldNotShareKeyAcrossCacheScopes() {
+        QueryParams queryParams = new QueryParams(List.of(new QueryFilter("name", List.of(), "John")),
+                PageRequest.of(0, 10), null);
+
+        assertNotEquals(QueryKey.of(Object.class, "tenant-a", Employee.class, queryParams, ""),
+                QueryKey.of(Object.class, "tenant-b", Employee.class, queryParams, ""));
+        assertNotEquals(QueryKey.ofCount(Object.class, "tenant-a", Employee.class, queryParams),
+                QueryKey.ofCount(Object.class, "tenant-b", Employee.class, queryParams));
+    }
+
+    @Test
+    void shouldEvictResultsTouchingChangedEntityType() {
+        load("employees", Set.of(Employee.class, Department.class), 1);
+        load("clients", Set.of(Client.class), 1);
+
+        changes.accept(Department.class);
+
+        load("employees", Set.of(Employee.class, Department.class), 1);
+        load("clients", Set.of(Client.class), 1);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBeyondBounds() {
+        load("a", Set.of(Employee.class), 1);
+        load("b", Set.of(Employee.class), 1);
+        load("a", Set.of(Employee.class), 1);
+        load("c", Set.of(Employee.class), 1);
+
+        assertEquals(2, cache.size());
+
+        load("a", Set.of(Employee.class), 1);
+        assertEquals(3, loads.get());
+
+        load("heavy", Set.of(Employee.class), 9);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldReloadExpiredResult() {
+        QueryResultCache expiringCache = new QueryResultCache(new QueryCacheProperties(true, 2, 10, Duration.ZERO,
+                false, 0, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(5)), entityChangeEvents);
+
+        expiringCache.get(key("a"), Set.of(Employee.class), value -> 1, loads::incrementAndGet);
+        expiringCache.get(key("a"), Set.of(Employee.class), value -> 1, loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheResultLoadedDuringChange() {
+        cache.get(key("a"), Set.of(Employee.class), value -> 1, () -> {
+            changes.accept(Client.class);
+            return loads.incrementAndGet();
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    private void load(String variant, Set<Class<?>> entityTypes, long weight) {
+        cache.get(key(variant), entityTypes, value -> weight, loads::incrementAndGet);
+    }
+
+    private QueryKey key(String variant) {
+        return QueryKey.of(Object.class, "", Employee.class, new QueryParams(List.of(), null, null), variant);
+    }
+}
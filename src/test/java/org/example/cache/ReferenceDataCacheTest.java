@@ -0,0 +1,136 @@
+package org.example.cache;
+
+import jakarta.persistence.EntityManager;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.example.Main;
+import org.example.employee.TestFilter;
+import org.example.model.Department;
+import org.example.model.Employee;
+import org.example.model.QEmployee;
+import org.example.query.QueryParams;
+import org.example.query.cache.EntityChangeEvents;
+import org.example.query.cache.QueryCacheProperties;
+import org.example.query.cache.ReferenceDataCache;
+import org.example.query.service.QueryFilterService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = Main.class)
+class ReferenceDataCacheTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityChangeEvents entityChangeEvents;
+
+    @Autowired
+    @Qualifier("employeeFilterService")
+    private QueryFilterService queryFilterService;
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM Employee e WHERE e.department.id IN "
+                    + "(SELECT d.id FROM Department d WHERE d.name LIKE 'Finance%')").executeUpdate();
+            entityManager.createQuery("DELETE FROM Department d WHERE d.name LIKE 'Finance%'")
+                    .executeUpdate();
+        });
+        referenceDataCache.evict(Department.class);
+    }
+
+    @Test
+    void shouldResolveCommittedRowsAndEvictOnChange() {
+        Long id = transactionTemplate.execute(status -> {
+            Department department = new Department();
+            department.setName("Finance");
+            entityManager.persist(department);
+            return department.getId();
+        });
+
+        assertEquals(Set.of(id),
+                referenceDataCache.idsFor(Department.class, "name", List.of("Finance")).orElseThrow());
+
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.find(Department.class, id).setName("Finance and Control"));
+
+        assertTrue(referenceDataCache.idsFor(Department.class, "name", List.of("Finance")).orElseThrow()
+                .isEmpty());
+    }
+
+    @Test
+    void shouldReloadExpiredIndexAfterBulkChange() {
+        ReferenceDataCache expiringCache = new ReferenceDataCache(entityManagerFactory, entityChangeEvents,
+                new QueryCacheProperties(false, 0, 0, Duration.ZERO, false, 0, Duration.ZERO, Duration.ZERO,
+                        Duration.ZERO));
+
+        assertTrue(expiringCache.idsFor(Department.class, "name", List.of("Finance")).orElseThrow().isEmpty());
+
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.createNativeQuery("INSERT INTO departments (name) VALUES ('Finance')")
+                        .executeUpdate());
+
+        assertEquals(1, expiringCache.idsFor(Department.class, "name", List.of("Finance")).orElseThrow().size());
+    }
+
+    @Test
+    void shouldFilterOnForeignKeyOfCommittedReferenceData() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Department department = new Department();
+            department.setName("Finance");
+            entityManager.persist(department);
+
+            Employee employee = new Employee();
+            employee.setName("Ada Finance");
+            employee.setDepartment(department);
+            entityManager.persist(employee);
+        });
+
+        TestFilter testFilter = new TestFilter();
+        testFilter.setDepartmentName(List.of("Finance"));
+
+        List<Employee> employees = transactionTemplate.execute(status -> {
+            JPAQuery<Employee> query = new JPAQueryFactory(entityManager).selectFrom(QEmployee.employee);
+            Predicate where = queryFilterService.predicateFrom(
+                    QueryParams.from(testFilter, null, null).queryFilter(), QEmployee.employee, query, List.of());
+
+            // the name is resolved to the ids of the cached departments, compared on the foreign key
+            assertTrue(query.getMetadata().getJoins().stream()
+                    .noneMatch(join -> join.getTarget().getType().equals(Department.class)));
+
+            return query.where(where).fetch();
+        });
+
+        assertEquals(List.of("Ada Finance"), employees.stream().map(Employee::getName).toList());
+    }
+
+    @Test
+    void shouldNotCacheOtherEntities() {
+        assertFalse(referenceDataCache.idsFor(Employee.class, "name", List.of("John Doe")).isPresent());
+    }
+}
@@ -1,33 +1,58 @@
 package org.example.employee;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.example.Main;
+import org.example.dto.EmployeeDto;
+import org.example.mapper.EmployeeMapper;
 import org.example.model.Client;
 import org.example.model.Department;
 import org.example.model.Employee;
 import org.example.model.ProjectToDo;
 import org.example.model.QEmployee;
+import org.example.query.ExpandStrategy;
+import org.example.query.QueryCost;
+import org.example.query.QueryFilterException;
 import org.example.query.QueryParams;
+import org.example.query.cache.ReferenceDataCache;
+import org.example.query.json.ExpandAwareModule;
+import org.example.query.mapper.ExpandContext;
+import org.example.query.relation.Relation;
+import org.example.query.relation.RelationRegistry;
 import org.example.query.service.QueryFilterService;
+import org.example.query.service.QueryFilterServiceImpl;
 import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.example.model.Employee.CLIENT;
 import static org.example.model.Employee.DEPARTMENT;
+import static org.example.model.Employee.PROJECTS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
 
 @SpringBootTest(classes = Main.class)
 @Transactional
@@ -42,6 +67,18 @@ class EmployeeFilterTest {
     @Qualifier("employeeFilterService")
     private QueryFilterService queryFilterService;
 
+    @Autowired
+    private RelationRegistry relationRegistry;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EmployeeMapper employeeMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @BeforeEach
     void setUp() {
         queryFactory = new JPAQueryFactory(entityManager);
@@ -176,6 +213,8 @@ class EmployeeFilterTest {
 
     @Test
     void testDepartmentFilterApplied() {
+        // the departments of the fixture are not committed, hence not cached: the filter keeps its join, the
+        // rewrite on the foreign key is covered by ReferenceDataCacheTest
         TestFilter testFilter = new TestFilter();
         testFilter.setDepartmentName(List.of("Marketing"));
 
@@ -201,4 +240,303 @@ class EmployeeFilterTest {
         assertFalse(Hibernate.isInitialized(employees.get(0).getProjects()));
         assertTrue(Hibernate.isInitialized(employees.get(0).getDepartment()));
     }
+
+    @Test
+    void testFetchPageLoadsExpandsForPageIds() {
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(0, 1, Sort.by("name")), List.of(PROJECTS));
+
+        List<Employee> employees = queryFilterService.fetchPage(entityManager, QEmployee.employee, queryParams);
+
+        assertEquals(1, employees.size());
+        assertEquals("Jane Smith", employees.get(0).getName());
+        assertTrue(Hibernate.isInitialized(employees.get(0).getProjects()));
+        assertEquals(1, employees.get(0).getProjects().size());
+    }
+
+    @Test
+    void testFetchPageAppliesFiltersAndOffset() {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setProjectName(List.of("like:Project*"));
+
+        QueryParams queryParams = QueryParams.from(testFilter, PageRequest.of(1, 1, Sort.by("name")), null);
+
+        List<Employee> employees = queryFilterService.fetchPage(entityManager, QEmployee.employee, queryParams);
+
+        assertEquals(1, employees.size());
+        assertEquals("John Doe", employees.get(0).getName());
+        assertTrue(Hibernate.isInitialized(employees.get(0).getProjects()));
+    }
+
+    @Test
+    void testFetchPageLoadsExpandsInBatches() {
+        QueryFilterService batchFilterService = new QueryFilterServiceImpl(relationRegistry, referenceDataCache) {
+            @Override
+            public ExpandStrategy expandStrategy() {
+                return ExpandStrategy.BATCH;
+            }
+        };
+
+        TestFilter testFilter = new TestFilter();
+        testFilter.setClientName(List.of("Acme Corp"));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Employee> employees = batchFilterService.fetchPage(entityManager, QEmployee.employee,
+                QueryParams.from(testFilter, PageRequest.of(0, 10), List.of(DEPARTMENT)));
+
+        assertEquals(1, employees.size());
+        assertTrue(Hibernate.isInitialized(employees.get(0).getDepartment()));
+        assertTrue(Hibernate.isInitialized(employees.get(0).getProjects()));
+
+        ProjectToDo project = employees.get(0).getProjects().iterator().next();
+        assertTrue(Hibernate.isInitialized(project.getClient()));
+        assertEquals("Acme Corp", project.getClient().getName());
+    }
+
+    @Test
+    void testFetchPageLoadsExpandsWithEntityGraph() {
+        QueryFilterService graphFilterService = new QueryFilterServiceImpl(relationRegistry, referenceDataCache) {
+            @Override
+            public ExpandStrategy expandStrategy() {
+                return ExpandStrategy.ENTITY_GRAPH;
+            }
+        };
+
+        TestFilter testFilter = new TestFilter();
+        testFilter.setClientName(List.of("Beta Inc"));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Employee> employees = graphFilterService.fetchPage(entityManager, QEmployee.employee,
+                QueryParams.from(testFilter, PageRequest.of(0, 10), null));
+
+        assertEquals(1, employees.size());
+        assertEquals("Jane Smith", employees.get(0).getName());
+        assertFalse(Hibernate.isInitialized(employees.get(0).getDepartment()));
+        assertTrue(Hibernate.isInitialized(employees.get(0).getProjects()));
+
+        ProjectToDo project = employees.get(0).getProjects().iterator().next();
+        assertTrue(Hibernate.isInitialized(project.getClient()));
+    }
+
+    @Test
+    void testNestedExpandResolvedFromRegistry() {
+        JPAQuery<Employee> query = queryFactory.selectFrom(QEmployee.employee);
+        Predicate where =
+                queryFilterService.predicateFrom(List.of(), QEmployee.employee, query, List.of(CLIENT));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Employee> employees = query.where(where).fetch();
+
+        assertEquals(2, employees.size());
+        assertTrue(Hibernate.isInitialized(employees.get(0).getProjects()));
+        assertTrue(Hibernate.isInitialized(employees.get(0).getProjects().iterator().next().getClient()));
+    }
+
+    @Test
+    void testNestedExpandReusesJoinOfFilter() {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setProjectName(List.of("Project Alpha"));
+
+        JPAQuery<Employee> query = queryFactory.selectFrom(QEmployee.employee);
+        Predicate where = queryFilterService.predicateFrom(QueryParams.from(testFilter, null, null).queryFilter(),
+                QEmployee.employee, query, List.of(CLIENT));
+
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Employee> employees = query.where(where).fetch();
+
+        assertEquals(1, employees.size());
+        assertEquals("John Doe", employees.get(0).getName());
+        assertTrue(Hibernate.isInitialized(employees.get(0).getProjects().iterator().next().getClient()));
+    }
+
+    @Test
+    void testForeignKeyFilterSkipsJoin() {
+        Long marketingId = entityManager.createQuery(
+                "select d.id from Department d where d.name = 'Marketing'", Long.class).getSingleResult();
+
+        TestFilter testFilter = new TestFilter();
+        testFilter.setDepartmentId(List.of(String.valueOf(marketingId)));
+
+        JPAQuery<Employee> query = queryFactory.selectFrom(QEmployee.employee);
+        Predicate where =
+                queryFilterService.predicateFrom(QueryParams.from(testFilter, null, null).queryFilter(), QEmployee.employee, query, List.of());
+
+        assertTrue(query.getMetadata().getJoins().stream()
+                .noneMatch(join -> join.getTarget().getType().equals(Department.class)));
+
+        List<Employee> employees = query.where(where).fetch();
+
+        assertEquals(1, employees.size());
+        assertEquals("Jane Smith", employees.get(0).getName());
+    }
+
+    @Test
+    void testFetchPageWithTotalReadsWindowCount() {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setDepartmentName(List.of("in:Engineering,Marketing"));
+        QueryParams queryParams = QueryParams.from(testFilter, PageRequest.of(0, 1, Sort.by("name")), null);
+
+        Page<Employee> page = queryFilterService.fetchPageWithTotal(entityManager, QEmployee.employee,
+                queryParams, () -> {
+                    throw new AssertionError("The total should come from the page query");
+                });
+
+        assertEquals(List.of("Jane Smith"), page.getContent().stream().map(Employee::getName).toList());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    void testFetchPageWithTotalChecksEveryHopOfDefaultJoins() {
+        QueryFilterService clientFilterService = new QueryFilterServiceImpl(relationRegistry, referenceDataCache) {
+            @Override
+            public List<String> defaultJoins() {
+                return List.of(CLIENT);
+            }
+        };
+        AtomicBoolean counted = new AtomicBoolean();
+
+        Page<Employee> page = clientFilterService.fetchPageWithTotal(entityManager, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 1, Sort.by("name")), null), () -> {
+                    counted.set(true);
+                    return 2L;
+                });
+
+        assertTrue(counted.get());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    void testFetchPageWithTotalFallsBackToCount() {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setProjectName(List.of("in:Project Alpha,Project Beta"));
+        QueryParams queryParams = QueryParams.from(testFilter, PageRequest.of(0, 1), null);
+
+        Page<Employee> page = queryFilterService.fetchPageWithTotal(entityManager, QEmployee.employee,
+                queryParams, () -> 2L);
+        Page<Employee> beyondEnd = queryFilterService.fetchPageWithTotal(entityManager, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(5, 1), null), () -> 2L);
+
+        assertEquals(1, page.getContent().size());
+        assertEquals(2, page.getTotalElements());
+        assertTrue(beyondEnd.getContent().isEmpty());
+        assertEquals(2, beyondEnd.getTotalElements());
+    }
+
+    @Test
+    void testFetchPageSortsOnJoinedEntity() {
+        List<Employee> employees = queryFilterService.fetchPage(entityManager, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "department.name")), null));
+
+        assertEquals(List.of("Jane Smith", "John Doe"), employees.stream().map(Employee::getName).toList());
+    }
+
+    @Test
+    void testFetchPageSortsThroughToManyRelation() {
+        List<Employee> employees = queryFilterService.fetchPage(entityManager, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "client.name")), null));
+
+        assertEquals(List.of("Jane Smith"), employees.stream().map(Employee::getName).toList());
+    }
+
+    @Test
+    void testSortOutsideAllowListIsRejected() {
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(0, 10, Sort.by("department.id")), null);
+
+        assertThrows(QueryFilterException.class,
+                () -> queryFilterService.fetchPage(entityManager, QEmployee.employee, queryParams));
+    }
+
+    @Test
+    void testFetchFieldsSelectsJoinedFields() {
+        List<Map<String, Object>> rows = queryFilterService.fetchFields(entityManager, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 10, Sort.by("name")), null),
+                List.of("name", "department.name"));
+
+        assertEquals(List.of(
+                Map.of("name", "Jane Smith", "department.name", "Marketing"),
+                Map.of("name", "John Doe", "department.name", "Engineering")), rows);
+        assertEquals(List.of("name", "department.name"), List.copyOf(rows.get(0).keySet()));
+    }
+
+    @Test
+    void testToOneRelationIsResolvedFromItsSourceEntity() {
+        // the same name as a to-many relation of another entity, which the name alone resolves to
+        RelationRegistry registry = spy(relationRegistry);
+        doReturn(Optional.of(new Relation(DEPARTMENT, Client.class, Department.class,
+                Relation.Cardinality.TO_MANY, "id"))).when(registry).relation(DEPARTMENT);
+        QueryFilterService service = new QueryFilterServiceImpl(registry, referenceDataCache);
+
+        List<Map<String, Object>> rows = service.fetchFields(entityManager, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 10, Sort.by("name")), null),
+                List.of("name", "department.name"));
+
+        assertEquals(2, rows.size());
+        assertEquals("Marketing", rows.get(0).get("department.name"));
+    }
+
+    @Test
+    void testFetchFieldsRejectsToManyField() {
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(0, 10), null);
+
+        assertThrows(QueryFilterException.class, () -> queryFilterService.fetchFields(entityManager,
+                QEmployee.employee, queryParams, List.of("projects.name")));
+    }
+
+    @Test
+    void testMapperSkipsNotExpandedAssociations() {
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(0, 10, Sort.by("name")), List.of(PROJECTS));
+        List<Employee> employees = queryFilterService.fetchPage(entityManager, QEmployee.employee, queryParams);
+
+        List<EmployeeDto> dtos = employeeMapper.toDtos(employees, ExpandContext.from(queryParams));
+
+        assertEquals("Jane Smith", dtos.get(0).name());
+        assertNull(dtos.get(0).department());
+        assertEquals("Project Beta", dtos.get(0).projects().iterator().next().name());
+        assertNull(dtos.get(0).projects().iterator().next().client());
+        assertFalse(Hibernate.isInitialized(employees.get(0).getDepartment()));
+    }
+
+    @Test
+    void testSerializationWritesNotExpandedAssociationsAsIds() throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(0, 10, Sort.by("name")), List.of(PROJECTS));
+        List<Employee> employees = queryFilterService.fetchPage(entityManager, QEmployee.employee, queryParams);
+
+        JsonNode json = objectMapper.readTree(
+                ExpandAwareModule.writerFor(objectMapper, queryParams).writeValueAsString(employees.get(0)));
+
+        assertEquals(employees.get(0).getDepartment().getId(), json.get("department").asLong());
+        assertEquals("Project Beta", json.get("projects").get(0).get("name").asText());
+        assertTrue(json.get("projects").get(0).get("client").isNumber());
+        assertFalse(json.get("projects").get(0).has("employee"));
+        assertFalse(Hibernate.isInitialized(employees.get(0).getDepartment()));
+        assertFalse(Hibernate.isInitialized(employees.get(0).getProjects().iterator().next().getEmployee()));
+    }
+
+    @Test
+    void testEstimateCostFromRequestShape() {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setName(List.of("like:*ohn*"));
+        testFilter.setProjectName(List.of("in:Project Alpha,Project Beta"));
+        testFilter.setDepartmentName(List.of("Engineering"));
+
+        QueryCost cost = queryFilterService.estimateCost(QueryParams.from(testFilter, null, null));
+
+        assertEquals(new QueryCost(2, 1, 1, true), cost);
+        assertEquals(6, cost.weight());
+        assertEquals(1, queryFilterService.estimateCost(
+                QueryParams.from(null, PageRequest.of(0, 10), null)).weight());
+    }
 }
@@ -32,6 +32,15 @@ public class TestFilter implements FilterRequest {
             joinPath = {@JOIN(entityToJoin = DEPARTMENT)})
     private List<String> departmentName;
 
+    @QueryField(
+            name = "id",
+            joinPath = {@JOIN(entityToJoin = DEPARTMENT)})
+    private List<String> departmentId;
+
+    public void setDepartmentId(List<String> departmentId) {
+        this.departmentId = departmentId;
+    }
+
     public void setDepartmentName(List<String> departmentName) {
         this.departmentName = departmentName;
     }
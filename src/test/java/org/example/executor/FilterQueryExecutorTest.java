@@ -0,0 +1,248 @@
+package org.example.executor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.Main;
+import org.example.employee.TestFilter;
+import org.example.model.Client;
+import org.example.model.Department;
+import org.example.model.Employee;
+import org.example.model.ProjectToDo;
+import org.example.model.QEmployee;
+import org.example.query.CursorPage;
+import org.example.query.Fields;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryParams;
+import org.example.query.cache.ReferenceDataCache;
+import org.example.query.executor.CountedPage;
+import org.example.query.executor.EndpointClass;
+import org.example.query.executor.FilterBatchQuery;
+import org.example.query.executor.FilterQueryExecutor;
+import org.example.query.executor.QueryCancellation;
+import org.example.query.executor.QueryTimeoutProperties;
+import org.example.query.service.QueryFilterService;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.example.model.Employee.PROJECTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Not transactional on purpose: the count query runs on its own entity manager and only sees
+ * committed rows
+ */
+@SpringBootTest(classes = Main.class)
+class FilterQueryExecutorTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FilterQueryExecutor filterQueryExecutor;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    @Qualifier("employeeFilterService")
+    private QueryFilterService queryFilterService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Department department = new Department();
+            department.setName("Engineering");
+            entityManager.persist(department);
+
+            Client client = new Client();
+            client.setName("Acme Corp");
+            entityManager.persist(client);
+
+            ProjectToDo project = new ProjectToDo();
+            project.setName("Project Alpha");
+            project.setClient(client);
+            entityManager.persist(project);
+
+            for (String name : List.of("Ann", "Bob", "Carl")) {
+                Employee employee = new Employee();
+                employee.setName(name);
+                employee.setDepartment(department);
+                employee.setProjects(Set.of(project));
+                entityManager.persist(employee);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("DELETE FROM employee_project").executeUpdate();
+            entityManager.createQuery("DELETE FROM Employee").executeUpdate();
+            entityManager.createQuery("DELETE FROM ProjectToDo").executeUpdate();
+            entityManager.createQuery("DELETE FROM Client").executeUpdate();
+            entityManager.createQuery("DELETE FROM Department").executeUpdate();
+        });
+        referenceDataCache.evict(Department.class);
+    }
+
+    @Test
+    void shouldCountWhenPageIsFull() {
+        Page<Employee> page = filterQueryExecutor.findPage(queryFilterService, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 2, Sort.by("name")), List.of(PROJECTS)));
+
+        assertEquals(List.of("Ann", "Bob"), page.getContent().stream().map(Employee::getName).toList());
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+    }
+
+    @Test
+    void shouldUseShortPageAsTotal() {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setName(List.of("in:Ann,Carl"));
+
+        Page<Employee> page = filterQueryExecutor.findPage(queryFilterService, QEmployee.employee,
+                QueryParams.from(testFilter, PageRequest.of(0, 10), null));
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    void shouldSliceWithoutCount() {
+        Slice<Employee> first = filterQueryExecutor.findSlice(queryFilterService, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 2, Sort.by("name")), null));
+        Slice<Employee> last = filterQueryExecutor.findSlice(queryFilterService, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(1, 2, Sort.by("name")), null));
+
+        assertEquals(List.of("Ann", "Bob"), first.getContent().stream().map(Employee::getName).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of("Carl"), last.getContent().stream().map(Employee::getName).toList());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void shouldSeekWithCursor() {
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "name")), null);
+
+        CursorPage<Employee> first = filterQueryExecutor.findCursorPage(queryFilterService, QEmployee.employee,
+                queryParams, null);
+        CursorPage<Employee> last = filterQueryExecutor.findCursorPage(queryFilterService, QEmployee.employee,
+                queryParams, first.nextCursor());
+
+        assertEquals(List.of("Carl", "Bob"), first.content().stream().map(Employee::getName).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of("Ann"), last.content().stream().map(Employee::getName).toList());
+        assertFalse(last.hasNext());
+    }
+
+    @Test
+    void shouldRejectTamperedOrReplayedCursor() {
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(0, 1, Sort.by("name")), null);
+        String cursor = filterQueryExecutor.findCursorPage(queryFilterService, QEmployee.employee,
+                queryParams, null).nextCursor();
+
+        TestFilter testFilter = new TestFilter();
+        testFilter.setName(List.of("in:Ann,Bob"));
+        QueryParams otherQuery = QueryParams.from(testFilter, PageRequest.of(0, 1, Sort.by("name")), null);
+
+        assertThrows(QueryFilterException.class, () -> filterQueryExecutor.findCursorPage(queryFilterService,
+                QEmployee.employee, queryParams, "x" + cursor));
+        assertThrows(QueryFilterException.class, () -> filterQueryExecutor.findCursorPage(queryFilterService,
+                QEmployee.employee, otherQuery, cursor));
+    }
+
+    @Test
+    void shouldLoadReadOnlyEntitiesWithinReadWriteTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+
+            Page<Employee> page = filterQueryExecutor.findPage(queryFilterService, QEmployee.employee,
+                    QueryParams.from(null, PageRequest.of(0, 2, Sort.by("name")), null));
+
+            assertTrue(page.getContent().stream().allMatch(session::isReadOnly));
+            assertFalse(session.isDefaultReadOnly());
+            assertEquals(FlushMode.AUTO, session.getHibernateFlushMode());
+        });
+    }
+
+    @Test
+    void shouldNotRunCancelledRequest() {
+        QueryCancellation cancellation = new QueryCancellation();
+        cancellation.cancel();
+
+        assertThrows(QueryFilterException.class, () -> cancellation.run(() -> filterQueryExecutor.findSlice(
+                queryFilterService, QEmployee.employee, QueryParams.from(null, PageRequest.of(0, 2), null))));
+    }
+
+    @Test
+    void shouldScaleTimeoutWithCost() {
+        QueryTimeoutProperties timeouts = new QueryTimeoutProperties(Duration.ofSeconds(5), Duration.ofSeconds(30),
+                Duration.ofMinutes(5), 4);
+
+        assertEquals(Duration.ofSeconds(5), timeouts.timeout(EndpointClass.INTERACTIVE, 1));
+        assertEquals(Duration.ofSeconds(20), timeouts.timeout(EndpointClass.INTERACTIVE, 6));
+        assertEquals(Duration.ofSeconds(60), timeouts.timeout(EndpointClass.REPORT, 2));
+    }
+
+    @Test
+    void shouldFetchPagesOfBatch() {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setName(List.of("in:Ann,Carl"));
+
+        Map<String, FilterBatchQuery<?>> queries = new LinkedHashMap<>();
+        queries.put("first", FilterBatchQuery.of(queryFilterService, QEmployee.employee,
+                QueryParams.from(null, PageRequest.of(0, 2, Sort.by("name")), null)));
+        queries.put("names", FilterBatchQuery.of(queryFilterService, QEmployee.employee,
+                QueryParams.from(testFilter, PageRequest.of(0, 10, Sort.by("name")), null), Fields.parse("name")));
+
+        Map<String, CountedPage<?>> pages = filterQueryExecutor.findPages(queries);
+
+        assertEquals(List.of("first", "names"), List.copyOf(pages.keySet()));
+        assertEquals(List.of("Ann", "Bob"), pages.get("first").getContent().stream()
+                .map(employee -> ((Employee) employee).getName()).toList());
+        assertEquals(3, pages.get("first").getTotalElements());
+        assertEquals(List.of(Map.of("name", "Ann"), Map.of("name", "Carl")), pages.get("names").getContent());
+        assertEquals(2, pages.get("names").getTotalElements());
+    }
+
+    @Test
+    void shouldRejectOversizedBatch() {
+        Map<String, FilterBatchQuery<?>> queries = new LinkedHashMap<>();
+        IntStream.range(0, 21).forEach(i -> queries.put("query" + i, FilterBatchQuery.of(queryFilterService,
+                QEmployee.employee, QueryParams.from(null, PageRequest.of(0, 1), null))));
+
+        assertThrows(QueryFilterException.class, () -> filterQueryExecutor.findPages(queries));
+    }
+
+    @Test
+    void shouldRejectOffsetBeyondWindow() {
+        QueryParams queryParams = QueryParams.from(null, PageRequest.of(10_001, 1), null);
+
+        assertThrows(QueryFilterException.class, () -> filterQueryExecutor.findPage(queryFilterService,
+                QEmployee.employee, queryParams));
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.Main;
+import org.example.employee.TestFilter;
+import org.example.model.Department;
+import org.example.model.Employee;
+import org.example.model.QEmployee;
+import org.example.query.QueryFilterCancelledException;
+import org.example.query.QueryFilterTimeoutException;
+import org.example.query.QueryParams;
+import org.example.query.executor.ExportFormat;
+import org.example.query.executor.FilterQueryExporter;
+import org.example.query.executor.QueryCancellation;
+import org.example.query.service.QueryFilterService;
+import org.hibernate.QueryTimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+@SpringBootTest(classes = Main.class)
+@Transactional
+class FilterQueryExporterTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private FilterQueryExporter filterQueryExporter;
+
+    @Autowired
+    @Qualifier("employeeFilterService")
+    private QueryFilterService queryFilterService;
+
+    private Department department;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createQuery("DELETE FROM Employee").executeUpdate();
+
+        department = new Department();
+        department.setName("Engineering");
+        entityManager.persist(department);
+
+        for (String name : List.of("Ann", "Smith, Bob")) {
+            Employee employee = new Employee();
+            employee.setName(name);
+            employee.setDepartment(department);
+            entityManager.persist(employee);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void shouldExportCsv() throws IOException {
+        List<String> lines = export(QueryParams.from(null, null, null), ExportFormat.CSV);
+
+        assertEquals(3, lines.size());
+        assertEquals("departmentId,id,name", lines.get(0));
+        assertTrue(lines.get(1).startsWith(department.getId() + ","));
+        assertTrue(lines.get(1).endsWith(",Ann"));
+        assertTrue(lines.get(2).endsWith(",\"Smith, Bob\""));
+    }
+
+    @Test
+    void shouldExportFilteredNdjson() throws IOException {
+        TestFilter testFilter = new TestFilter();
+        testFilter.setName(List.of("Ann"));
+
+        List<String> lines = export(QueryParams.from(testFilter, null, null), ExportFormat.NDJSON);
+
+        assertEquals(1, lines.size());
+        JsonNode row = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("Ann", row.get("name").asText());
+        assertEquals(department.getId(), row.get("departmentId").asLong());
+    }
+
+    @Test
+    void shouldReportTimeoutOfScroll() {
+        QueryFilterService timingOut = spy(queryFilterService);
+        // the cursor is a native ScrollableResults, timing out with the Hibernate exception
+        doThrow(new QueryTimeoutException("timeout", new SQLException("timeout"), "select"))
+                .when(timingOut).scroll(any(), any(), any(), anyInt(), any());
+
+        assertThrows(QueryFilterTimeoutException.class,
+                () -> export(timingOut, QueryParams.from(null, null, null), ExportFormat.CSV));
+    }
+
+    @Test
+    void shouldNotExportForCancelledRequest() {
+        QueryCancellation cancellation = new QueryCancellation();
+        cancellation.cancel();
+
+        assertThrows(QueryFilterCancelledException.class, () -> cancellation.run(
+                () -> filterQueryExporter.export(queryFilterService, QEmployee.employee,
+                        QueryParams.from(null, null, null), ExportFormat.CSV))
+                .writeTo(new ByteArrayOutputStream()));
+    }
+
+    private List<String> export(QueryParams queryParams, ExportFormat format) throws IOException {
+        return export(queryFilterService, queryParams, format);
+    }
+
+    private List<String> export(QueryFilterService service, QueryParams queryParams, ExportFormat format)
+            throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        filterQueryExporter.export(service, QEmployee.employee, queryParams, format)
+                .writeTo(outputStream);
+
+        return outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.executor;
+
+import org.example.model.Department;
+import org.example.model.Employee;
+import org.example.query.QueryParams;
+import org.example.query.cache.EntityChangeEvents;
+import org.example.query.cache.QueryKey;
+import org.example.query.executor.CountStrategy;
+import org.example.query.executor.FilterQueryProperties;
+import org.example.query.executor.PagePrefetcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PagePrefetcherTest {
+
+    private static final Set<Class<?>> ENTITY_TYPES = Set.of(Employee.class, Department.class);
+
+    @Mock
+    private EntityChangeEvents entityChangeEvents;
+
+    private final List<Runnable> prefetches = new ArrayList<>();
+
+    @Test
+    void shouldServePrefetchedPageOnce() {
+        PagePrefetcher prefetcher = prefetcher(1, Duration.ofSeconds(10));
+
+        prefetcher.prefetch(key(1), ENTITY_TYPES, () -> "page 1", Runnable::run);
+
+        assertEquals(Optional.of("page 1"), prefetcher.take(key(1)));
+        assertEquals(Optional.empty(), prefetcher.take(key(1)));
+    }
+
+    @Test
+    void shouldSkipPrefetchBeyondBudget() {
+        PagePrefetcher prefetcher = prefetcher(1, Duration.ofSeconds(10));
+
+        prefetcher.prefetch(key(1), ENTITY_TYPES, () -> "page 1", prefetches::add);
+        prefetcher.prefetch(key(2), ENTITY_TYPES, () -> "page 2", prefetches::add);
+        assertEquals(1, prefetches.size());
+
+        prefetches.remove(0).run();
+        prefetcher.prefetch(key(2), ENTITY_TYPES, () -> "page 2", Runnable::run);
+
+        assertEquals(Optional.of("page 1"), prefetcher.take(key(1)));
+        assertEquals(Optional.of("page 2"), prefetcher.take(key(2)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldDropPrefetchedPageOnChange() {
+        PagePrefetcher prefetcher = prefetcher(1, Duration.ofSeconds(10));
+        ArgumentCaptor<Consumer<Class<?>>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(entityChangeEvents).subscribe(subscriber.capture());
+
+        prefetcher.prefetch(key(1), ENTITY_TYPES, () -> "page 1", Runnable::run);
+        subscriber.getValue().accept(Department.class);
+
+        assertEquals(Optional.empty(), prefetcher.take(key(1)));
+    }
+
+    @Test
+    void shouldNotServeExpiredPage() {
+        PagePrefetcher prefetcher = prefetcher(1, Duration.ZERO);
+
+        prefetcher.prefetch(key(1), ENTITY_TYPES, () -> "page 1", Runnable::run);
+
+        assertEquals(Optional.empty(), prefetcher.take(key(1)));
+    }
+
+    private PagePrefetcher prefetcher(int concurrency, Duration ttl) {
+        return new PagePrefetcher(new FilterQueryProperties(true, 16, CountStrategy.CONCURRENT, 10_000,
+                null, 1000, true, Duration.ofSeconds(5), true, concurrency, ttl, true, 20),
+                entityChangeEvents);
+    }
+
+    private static QueryKey key(int page) {
+        return QueryKey.of(Object.class, "", Employee.class,
+                new QueryParams(List.of(), PageRequest.of(page, 10), null), "dto");
+    }
+}
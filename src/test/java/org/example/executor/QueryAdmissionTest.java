@@ -0,0 +1,112 @@
+package org.example.executor;
+
+import org.example.query.QueryCost;
+import org.example.query.QueryFilterRejectedException;
+import org.example.query.executor.EndpointClass;
+import org.example.query.executor.QueryAdmission;
+import org.example.query.executor.QueryAdmissionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryAdmissionTest {
+
+    private static final QueryCost LIGHT = new QueryCost(0, 0, 0, false);
+
+    private static final QueryCost HEAVY = new QueryCost(0, 1, 1, false);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void shouldClassifyByEndpointClassAndCost() {
+        QueryAdmission admission = admission(2, 1);
+
+        assertFalse(admission.isHeavy(EndpointClass.INTERACTIVE, LIGHT));
+        assertTrue(admission.isHeavy(EndpointClass.INTERACTIVE, HEAVY));
+        assertTrue(admission.isHeavy(EndpointClass.REPORT, LIGHT));
+        assertTrue(admission.isHeavy(EndpointClass.EXPORT, LIGHT));
+    }
+
+    @Test
+    void shouldRunLightRequestsWhileHeavySlotsAreTaken() throws Exception {
+        QueryAdmission admission = admission(1, 1);
+        hold(admission, EndpointClass.REPORT, LIGHT);
+
+        assertEquals("light", admission.admit(EndpointClass.INTERACTIVE, LIGHT, () -> "light"));
+        assertThrows(QueryFilterRejectedException.class,
+                () -> admission.admit(EndpointClass.INTERACTIVE, HEAVY, () -> "heavy"));
+        assertEquals(1, admission.rejected());
+    }
+
+    @Test
+    void shouldKeepHeavySlotForInteractiveWhileExporting() throws Exception {
+        QueryAdmission admission = admission(2, 1);
+        hold(admission, EndpointClass.EXPORT, LIGHT);
+
+        assertThrows(QueryFilterRejectedException.class,
+                () -> admission.admit(EndpointClass.EXPORT, LIGHT, () -> "export"));
+        assertEquals("heavy", admission.admit(EndpointClass.INTERACTIVE, HEAVY, () -> "heavy"));
+    }
+
+    @Test
+    void shouldRejectSpeculativeRequestRightAwayWhileHeavySlotsAreTaken() throws Exception {
+        QueryAdmission admission = new QueryAdmission(new QueryAdmissionProperties(true, 4, 1, 1,
+                Duration.ofSeconds(5)));
+        hold(admission, EndpointClass.REPORT, LIGHT);
+        long start = System.nanoTime();
+
+        assertThrows(QueryFilterRejectedException.class, () -> admission.speculative(
+                () -> admission.admit(EndpointClass.INTERACTIVE, HEAVY, () -> "prefetch")));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals("light", admission.speculative(
+                () -> admission.admit(EndpointClass.INTERACTIVE, LIGHT, () -> "light")));
+    }
+
+    @Test
+    void shouldAdmitNestedRequestOnce() {
+        QueryAdmission admission = admission(1, 1);
+
+        assertEquals("nested", admission.admit(EndpointClass.REPORT, HEAVY,
+                () -> admission.admit(EndpointClass.REPORT, HEAVY, () -> "nested")));
+        assertEquals(1, admission.admitted());
+    }
+
+    /**
+     * Take a slot from another thread until the end of the test
+     */
+    private void hold(QueryAdmission admission, EndpointClass endpointClass, QueryCost cost)
+            throws Exception {
+        CompletableFuture<Void> admitted = new CompletableFuture<>();
+
+        new Thread(() -> admission.admit(endpointClass, cost, () -> {
+            admitted.complete(null);
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        })).start();
+
+        admitted.get();
+    }
+
+    private static QueryAdmission admission(int heavySlots, int exportSlots) {
+        return new QueryAdmission(new QueryAdmissionProperties(true, 4, heavySlots, exportSlots,
+                Duration.ofMillis(50)));
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.executor;
+
+import org.example.model.Employee;
+import org.example.query.QueryFilterCancelledException;
+import org.example.query.QueryFilterException;
+import org.example.query.QueryParams;
+import org.example.query.cache.QueryKey;
+import org.example.query.executor.CountStrategy;
+import org.example.query.executor.FilterQueryProperties;
+import org.example.query.executor.QueryCoalescer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryCoalescerTest {
+
+    private static final QueryKey KEY = QueryKey.ofCount(Object.class, "", Employee.class,
+            new QueryParams(List.of(), null, null));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldShareResultOfQueryInFlight() throws Exception {
+        QueryCoalescer coalescer = coalescer(Duration.ofSeconds(5));
+
+        CompletableFuture<Integer> follower = whileInFlight(coalescer, loads::incrementAndGet);
+
+        assertEquals(1, follower.get());
+        assertEquals(1, loads.get());
+        assertEquals(1, coalescer.executed());
+        assertEquals(1, coalescer.coalesced());
+    }
+
+    @Test
+    void shouldPropagateFailureOfQueryInFlight() {
+        QueryCoalescer coalescer = coalescer(Duration.ofSeconds(5));
+        QueryFilterException failure = new QueryFilterException("boom");
+
+        CompletableFuture<Integer> follower = whileInFlight(coalescer, () -> {
+            throw failure;
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, follower::get);
+        assertSame(failure, e.getCause());
+    }
+
+    @Test
+    void shouldRunQueryAgainAfterCancellationOfQueryInFlight() throws Exception {
+        QueryCoalescer coalescer = coalescer(Duration.ofSeconds(5));
+
+        CompletableFuture<Integer> follower = whileInFlight(coalescer, () -> {
+            throw new QueryFilterCancelledException();
+        });
+
+        assertEquals(1, follower.get());
+        assertEquals(2, coalescer.executed());
+        assertEquals(0, coalescer.coalesced());
+    }
+
+    @Test
+    void shouldRunOwnQueryAfterWaitTimeout() throws Exception {
+        QueryCoalescer coalescer = coalescer(Duration.ZERO);
+
+        CompletableFuture<Integer> follower = whileInFlight(coalescer, loads::incrementAndGet);
+
+        assertEquals(1, follower.get());
+        assertEquals(2, coalescer.executed());
+        assertEquals(1, coalescer.timedOut());
+    }
+
+    /**
+     * Run a follower execution while the leader one is in flight, then complete the leader with
+     * the result of the loader
+     */
+    private CompletableFuture<Integer> whileInFlight(QueryCoalescer coalescer, Supplier<Integer> loader) {
+        CompletableFuture<Integer> follower = new CompletableFuture<>();
+
+        try {
+            coalescer.execute(KEY, () -> {
+                Thread thread = new Thread(() -> {
+                    try {
+                        follower.complete(coalescer.execute(KEY, loads::incrementAndGet));
+                    } catch (RuntimeException e) {
+                        follower.completeExceptionally(e);
+                    }
+                });
+                thread.start();
+                awaitWaitingOrDone(thread, follower);
+                return loader.get();
+            });
+        } catch (QueryFilterException e) {
+            // failure of the leader
+        }
+
+        return follower;
+    }
+
+    private static void awaitWaitingOrDone(Thread thread, CompletableFuture<?> follower) {
+        while (!follower.isDone() && thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static QueryCoalescer coalescer(Duration timeout) {
+        return new QueryCoalescer(new FilterQueryProperties(true, 16, CountStrategy.CONCURRENT, 10_000,
+                null, 1000, true, timeout, false, 0, Duration.ZERO, true, 20));
+    }
+}
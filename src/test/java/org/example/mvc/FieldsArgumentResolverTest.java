@@ -0,0 +1,52 @@
+package org.example.mvc;
+
+import org.example.query.Fields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FieldsArgumentResolverTest {
+
+    private FieldsArgumentResolver resolver;
+
+    @Mock
+    private NativeWebRequest webRequest;
+
+    @Mock
+    private MethodParameter methodParameter;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new FieldsArgumentResolver();
+    }
+
+    @Test
+    void testResolveCommaSeparatedAndRepeatedFields() {
+        when(webRequest.getParameterValues("fields"))
+                .thenReturn(new String[]{"name, department.name", "id,,name"});
+
+        Object result = resolver.resolveArgument(methodParameter, null, webRequest, null);
+
+        assertEquals(new Fields(List.of("name", "department.name", "id")), result);
+    }
+
+    @Test
+    void testResolveWithoutFields() {
+        when(webRequest.getParameterValues("fields")).thenReturn(null);
+
+        Fields result = (Fields) resolver.resolveArgument(methodParameter, null, webRequest, null);
+
+        assertTrue(result.isEmpty());
+    }
+}
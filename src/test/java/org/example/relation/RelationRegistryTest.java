@@ -0,0 +1,63 @@
+package org.example.relation;
+
+import org.example.Main;
+import org.example.model.Client;
+import org.example.model.Department;
+import org.example.model.Employee;
+import org.example.model.ProjectToDo;
+import org.example.model.QEmployee;
+import org.example.query.relation.Relation;
+import org.example.query.relation.RelationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.example.model.Employee.CLIENT;
+import static org.example.model.Employee.DEPARTMENT;
+import static org.example.model.Employee.PROJECTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = Main.class)
+class RelationRegistryTest {
+
+    @Autowired
+    private RelationRegistry relationRegistry;
+
+    @Test
+    void shouldResolveRelationsFromMetamodel() {
+        Relation projects = relationRegistry.relation(Employee.class, PROJECTS).orElseThrow();
+
+        assertEquals(ProjectToDo.class, projects.targetClass());
+        assertEquals(Relation.Cardinality.TO_MANY, projects.cardinality());
+
+        Relation department = relationRegistry.relation(DEPARTMENT).orElseThrow();
+
+        assertEquals(Department.class, department.targetClass());
+        assertTrue(department.isToOne());
+        assertEquals("id", department.targetIdAttribute());
+    }
+
+    @Test
+    void shouldResolveMultiHopPaths() {
+        List<Relation> path = relationRegistry.path(Employee.class, CLIENT).orElseThrow();
+
+        assertEquals(List.of(PROJECTS, CLIENT), path.stream().map(Relation::name).toList());
+        assertEquals(Client.class, path.get(1).targetClass());
+    }
+
+    @Test
+    void shouldNotLeadBackToRoot() {
+        // both department and projects have employees, which would lead back to the root
+        assertFalse(relationRegistry.path(Employee.class, "employees").isPresent());
+    }
+
+    @Test
+    void shouldResolveQTypes() {
+        assertSame(QEmployee.employee, relationRegistry.entityPath(Employee.class).orElseThrow());
+    }
+}